@@ -4,6 +4,8 @@ package com.jless.voxelGame;
 
 import static org.lwjgl.opengl.GL11.*;
 
+import java.nio.file.Paths;
+
 import org.joml.Matrix4f;
 
 import com.jless.voxelGame.player.Player;
@@ -18,9 +20,12 @@ public class App {
   private Player player;
   private PlayerController controller;
   private Camera camera;
+  private FrustumCuller culler;
   private Mesh qMesh;
-  private Chunk chunk;
-  private ChunkMesher chunkMesh;
+  private MeshingService meshing;
+  private ChunkArena arena;
+  private ChunkCache chunkCache;
+  private ChunkStreamer streamer;
   private World world;
   private TerrainGen generator;
   private Texture texture;
@@ -45,20 +50,13 @@ public class App {
     shader = new ShaderProgram("shaders/simple.vert", "shaders/simple.frag");
 
     world = new World();
-    chunkMesh = new ChunkMesher();
-    for(int x = -5; x <= 5; x++) {
-      for(int z = -5; z <= 5; z++) {
-        world.setBlock(x, 79, z, BlockID.STONE);
-      }
-    }
-
-    chunk = world.getChunk(0, 0);
-
-    System.out.println("Chunk is null: " + (chunk == null));
-    if(chunk != null) {
-      chunk.mesh = chunkMesh.buildMesh(world, chunk, atlas);
-      System.out.println("Mesh is null: " + (chunk.mesh == null));
-    }
+    world.setStorage(new RegionStorage(Paths.get(Consts.SAVE_DIR)));
+    arena = new ChunkArena(Consts.ARENA_VERTICES);
+    meshing = new MeshingService(world, arena, ChunkMesher.Mode.GREEDY, Consts.MESH_THREADS);
+    chunkCache = new ChunkCache(world, Consts.CHUNK_MEMORY_BUDGET);
+    chunkCache.setSaveHook(world::save);
+    streamer = new ChunkStreamer(world, chunkCache, Consts.RENDER_DISTANCE);
+    world.fill(-5, 79, -5, 6, 80, 6, BlockID.STONE);
 
     Time.init();
     Input.init(window.window());
@@ -72,6 +70,7 @@ public class App {
     player.pitch = -50;
 
     camera = new Camera();
+    culler = new FrustumCuller();
     camera.setGluPersp(Consts.FOV, (float)window.width() / (float)window.height(), 0.05f, 1000.0f);
 
     System.out.println("Block at 0,79,0 = " + world.getBlock(0, 79, 0));
@@ -103,10 +102,21 @@ public class App {
 
     texture.bind(0);
     shader.setInt("uTex", 0);
+    shader.setVec2("uTileSize", atlas.tileW(), atlas.tileH());
 
-    if(chunk != null && chunk.mesh != null) {
-      chunk.mesh.render();
+    culler.beginFrame();
+    culler.update(camera.projection(), camera.view());
+    arena.begin();
+    for(Chunk c : world.chunks()) {
+      if(c.mesh == null) continue;
+
+      float x = c.cx * Consts.CHUNK_X;
+      float z = c.cz * Consts.CHUNK_Z;
+      if(!culler.testAab(x, c.meshMinY, z, x + Consts.CHUNK_X, c.meshMaxY, z + Consts.CHUNK_Z)) continue;
+
+      arena.queue(c.mesh, x, 0.0f, z);
     }
+    arena.draw();
 
     shader.unbind();
   }
@@ -138,10 +148,26 @@ public class App {
   private void update(float dt) {
     controller.update(dt);
     camera.updateView(player.position, player.yaw, player.pitch);
+
+    streamer.update(player.position.x, player.position.z, dt);
+    chunkCache.update(player.position.x, player.position.z);
+
+    meshing.submitScheduled();
+    meshing.uploadFinished(Consts.MESH_UPLOAD_BUDGET_NANOS);
   }
 
   private void cleanup() {
-    qMesh.destroy();
+    meshing.shutdown();
+    world.shutdown();
+    System.out.println("Saved " + world.saveAll() + " chunks");
+    System.out.println(world.terrain().timingReport());
+    world.storage().close();
+    for(Chunk c : world.chunks()) {
+      if(c.mesh != null) c.mesh.destroy();
+    }
+    if(qMesh != null) qMesh.destroy();
+    arena.destroy();
+    QuadIndexBuffer.destroy();
     texture.destroy();
     shader.destory();
     window.destroy();
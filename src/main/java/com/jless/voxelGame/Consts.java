@@ -17,5 +17,35 @@ public final class Consts {
   public static final int CHUNK_Z = 16;
   public static final int SEA_LEVEL = 64;
 
+  public static final int SECTION_SIZE = 16;
+  public static final int SECTION_SHIFT = 4;
+  public static final int SECTIONS = CHUNK_Y / SECTION_SIZE;
+
+  //Persistence
+  public static final String SAVE_DIR = "saves/world";
+
+  //Residency
+  public static final long CHUNK_MEMORY_BUDGET = 256L * 1024 * 1024;
+
+  //Generation
+  public static final int GEN_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+  // Lattice mode samples height noise every TERRAIN_LATTICE_STEP blocks and interpolates.
+  public static final int TERRAIN_LATTICE_STEP = 4;
+  // Max height error, in blocks, before a lattice cell falls back to exact sampling.
+  public static final float TERRAIN_TOLERANCE = 1.0f;
+  public static final int TERRAIN_LATTICE_CACHE = 4096;
+
+  //Streaming
+  public static final int RENDER_DISTANCE = 12;
+  public static final int STREAM_HYSTERESIS = 2;
+  public static final int STREAM_MAX_IN_FLIGHT = GEN_THREADS * 2;
+  public static final float STREAM_LEAD_SECONDS = 1.0f;
+
+  //Meshing
+  public static final int MESH_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+  public static final long MESH_UPLOAD_BUDGET_NANOS = 2_000_000L;
+  // Initial size of the shared chunk vertex buffer, in vertices (8 bytes each).
+  public static final int ARENA_VERTICES = 1 << 22;
+
   private Consts() {}
 }
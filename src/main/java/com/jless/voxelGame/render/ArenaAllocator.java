@@ -0,0 +1,124 @@
+package com.jless.voxelGame.render;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// Free-list sub-allocator over a linear range of units. Holds no GL state; the owner
+// maps units to buffer bytes and performs the copies that compaction asks for.
+// Freed blocks are merged with free neighbours immediately, so the free list never
+// holds two adjacent blocks.
+public class ArenaAllocator {
+
+  public interface Relocation {
+    void moved(int from, int to, int size);
+  }
+
+  private int capacity;
+  // offset -> size, both keyed by start offset.
+  private final TreeMap<Integer, Integer> free = new TreeMap<>();
+  private final TreeMap<Integer, Integer> used = new TreeMap<>();
+  private int freeUnits;
+
+  public ArenaAllocator(int capacity) {
+    this.capacity = capacity;
+    if(capacity > 0) free.put(0, capacity);
+    freeUnits = capacity;
+  }
+
+  // Best fit. Returns the offset, or -1 if no single free block is large enough.
+  public int allocate(int size) {
+    if(size <= 0) throw new IllegalArgumentException("size " + size);
+
+    int bestOffset = -1;
+    int bestSize = Integer.MAX_VALUE;
+    for(Map.Entry<Integer, Integer> e : free.entrySet()) {
+      int s = e.getValue();
+      if(s >= size && s < bestSize) {
+        bestOffset = e.getKey();
+        bestSize = s;
+        if(s == size) break;
+      }
+    }
+    if(bestOffset < 0) return -1;
+
+    free.remove(bestOffset);
+    if(bestSize > size) free.put(bestOffset + size, bestSize - size);
+    used.put(bestOffset, size);
+    freeUnits -= size;
+    return bestOffset;
+  }
+
+  public void free(int offset) {
+    Integer size = used.remove(offset);
+    if(size == null) throw new IllegalArgumentException("not allocated: " + offset);
+
+    freeUnits += size;
+    insertFree(offset, size);
+  }
+
+  private void insertFree(int offset, int size) {
+    Map.Entry<Integer, Integer> before = free.floorEntry(offset);
+    if(before != null && before.getKey() + before.getValue() == offset) {
+      offset = before.getKey();
+      size += before.getValue();
+      free.remove(offset);
+    }
+
+    Integer after = free.get(offset + size);
+    if(after != null) {
+      free.remove(offset + size);
+      size += after;
+    }
+    free.put(offset, size);
+  }
+
+  public void grow(int newCapacity) {
+    if(newCapacity <= capacity) return;
+    int added = newCapacity - capacity;
+    int start = capacity;
+    capacity = newCapacity;
+    freeUnits += added;
+    insertFree(start, added);
+  }
+
+  // Packs every allocation towards offset 0 in address order, reporting each move,
+  // and leaves a single free block at the end.
+  public void compact(Relocation relocation) {
+    TreeMap<Integer, Integer> packed = new TreeMap<>();
+    int pos = 0;
+    for(Map.Entry<Integer, Integer> e : used.entrySet()) {
+      int offset = e.getKey();
+      int size = e.getValue();
+      if(offset != pos) relocation.moved(offset, pos, size);
+      packed.put(pos, size);
+      pos += size;
+    }
+
+    used.clear();
+    used.putAll(packed);
+    free.clear();
+    if(pos < capacity) free.put(pos, capacity - pos);
+  }
+
+  public int sizeOf(int offset) {
+    Integer size = used.get(offset);
+    return size == null ? 0 : size;
+  }
+
+  public int capacity() { return capacity; }
+  public int freeUnits() { return freeUnits; }
+  public int usedUnits() { return capacity - freeUnits; }
+  public int allocations() { return used.size(); }
+  public int freeBlocks() { return free.size(); }
+
+  public int largestFree() {
+    int max = 0;
+    for(int s : free.values()) max = Math.max(max, s);
+    return max;
+  }
+
+  // 0 when all free space is one block, approaching 1 as it splinters.
+  public float fragmentation() {
+    return freeUnits == 0 ? 0.0f : 1.0f - (float)largestFree() / freeUnits;
+  }
+}
@@ -0,0 +1,232 @@
+package com.jless.voxelGame.render;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL31.*;
+import static org.lwjgl.opengl.GL32.glDrawElementsBaseVertex;
+import static org.lwjgl.opengl.GL33.glVertexAttribDivisor;
+import static org.lwjgl.opengl.GL40.GL_DRAW_INDIRECT_BUFFER;
+import static org.lwjgl.opengl.GL43.glMultiDrawElementsIndirect;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+
+// Every chunk mesh lives in one vertex buffer, sub-allocated by ArenaAllocator in
+// units of one ChunkVertex. Visible meshes are queued each frame and drawn with a
+// single glMultiDrawElementsIndirect; each command's baseInstance selects that
+// chunk's origin from an instanced attribute. Without GL 4.3 the same queue is
+// drawn one glDrawElementsBaseVertex at a time with the origin set as a constant
+// attribute. GL thread only.
+public class ChunkArena {
+
+  private static final int ORIGIN_ATTRIB = 1;
+  private static final int COMMAND_INTS = 5;
+
+  private final ArenaAllocator allocator;
+  private final Map<Integer, Mesh> meshes = new HashMap<>();
+  private final boolean indirect;
+
+  private final int vao;
+  private int vbo;
+  private final int originVbo;
+  private final int commandVbo;
+
+  private IntBuffer commands;
+  private FloatBuffer origins;
+  private int queued;
+  private int maxQueuedVertices;
+
+  private int drawCalls;
+  private int compactions;
+
+  public ChunkArena(int initialVertices) {
+    allocator = new ArenaAllocator(initialVertices);
+    indirect = GL.getCapabilities().OpenGL43;
+
+    commands = BufferUtils.createIntBuffer(256 * COMMAND_INTS);
+    origins = BufferUtils.createFloatBuffer(256 * 3);
+
+    vao = glGenVertexArrays();
+    glBindVertexArray(vao);
+
+    vbo = createVertexBuffer(initialVertices);
+    bindVertexAttrib();
+
+    originVbo = glGenBuffers();
+    glBindBuffer(GL_ARRAY_BUFFER, originVbo);
+    glVertexAttribPointer(ORIGIN_ATTRIB, 3, GL_FLOAT, false, 0, 0L);
+    glVertexAttribDivisor(ORIGIN_ATTRIB, 1);
+    if(indirect) glEnableVertexAttribArray(ORIGIN_ATTRIB);
+
+    commandVbo = indirect ? glGenBuffers() : 0;
+    glBindVertexArray(0);
+  }
+
+  private static int createVertexBuffer(int vertices) {
+    int buffer = glGenBuffers();
+    glBindBuffer(GL_ARRAY_BUFFER, buffer);
+    glBufferData(GL_ARRAY_BUFFER, (long)vertices * ChunkVertex.BYTES, GL_STATIC_DRAW);
+    return buffer;
+  }
+
+  // Expects the VAO bound and the vertex buffer bound to GL_ARRAY_BUFFER.
+  private void bindVertexAttrib() {
+    glVertexAttribIPointer(0, ChunkVertex.INTS, GL_UNSIGNED_INT, ChunkVertex.BYTES, 0L);
+    glEnableVertexAttribArray(0);
+  }
+
+  public Mesh upload(MeshBuilder builder) {
+    IntBuffer data = builder.vertices();
+    int vertices = data.remaining() / ChunkVertex.INTS;
+
+    int offset = allocator.allocate(vertices);
+    if(offset < 0) {
+      makeRoom(vertices);
+      offset = allocator.allocate(vertices);
+    }
+
+    glBindBuffer(GL_ARRAY_BUFFER, vbo);
+    glBufferSubData(GL_ARRAY_BUFFER, (long)offset * ChunkVertex.BYTES, data);
+    glBindBuffer(GL_ARRAY_BUFFER, 0);
+
+    Mesh mesh = new Mesh(this, offset, vertices);
+    meshes.put(offset, mesh);
+    return mesh;
+  }
+
+  void free(Mesh mesh) {
+    if(meshes.remove(mesh.offset) == null) return;
+    allocator.free(mesh.offset);
+  }
+
+  // Compacts when there is enough free space in total, otherwise doubles the arena.
+  // Either way the live data is copied into a fresh buffer, so ranges never overlap.
+  private void makeRoom(int vertices) {
+    int capacity = allocator.capacity();
+    if(allocator.freeUnits() < vertices) {
+      int grown = Math.max(capacity * 2, capacity + vertices);
+      int old = vbo;
+      vbo = createVertexBuffer(grown);
+      copy(old, vbo, 0, 0, capacity);
+      glDeleteBuffers(old);
+      allocator.grow(grown);
+    } else {
+      int old = vbo;
+      vbo = createVertexBuffer(capacity);
+      Map<Integer, Mesh> moved = new HashMap<>();
+      allocator.compact((from, to, size) -> {
+        copy(old, vbo, from, to, size);
+        Mesh m = meshes.remove(from);
+        m.offset = to;
+        moved.put(to, m);
+      });
+      meshes.putAll(moved);
+      copyUnmoved(old, moved);
+      glDeleteBuffers(old);
+      compactions++;
+    }
+
+    glBindVertexArray(vao);
+    glBindBuffer(GL_ARRAY_BUFFER, vbo);
+    bindVertexAttrib();
+    glBindVertexArray(0);
+  }
+
+  // Allocations that compaction left in place still have to reach the new buffer.
+  private void copyUnmoved(int old, Map<Integer, Mesh> moved) {
+    for(Mesh m : meshes.values()) {
+      if(moved.get(m.offset) == m) continue;
+      copy(old, vbo, m.offset, m.offset, m.vertexCount);
+    }
+  }
+
+  private static void copy(int src, int dst, int from, int to, int vertices) {
+    glBindBuffer(GL_COPY_READ_BUFFER, src);
+    glBindBuffer(GL_COPY_WRITE_BUFFER, dst);
+    glCopyBufferSubData(GL_COPY_READ_BUFFER, GL_COPY_WRITE_BUFFER,
+      (long)from * ChunkVertex.BYTES, (long)to * ChunkVertex.BYTES, (long)vertices * ChunkVertex.BYTES);
+  }
+
+  public void begin() {
+    commands.clear();
+    origins.clear();
+    queued = 0;
+    maxQueuedVertices = 0;
+    drawCalls = 0;
+  }
+
+  public void queue(Mesh mesh, float ox, float oy, float oz) {
+    if(queued * COMMAND_INTS == commands.capacity()) {
+      commands = grow(commands);
+      origins = grow(origins);
+    }
+
+    commands.put(mesh.vertexCount / 4 * QuadIndexBuffer.INDICES_PER_QUAD);
+    commands.put(1);
+    commands.put(0);
+    commands.put(mesh.offset);
+    commands.put(queued);
+    origins.put(ox).put(oy).put(oz);
+
+    maxQueuedVertices = Math.max(maxQueuedVertices, mesh.vertexCount);
+    queued++;
+  }
+
+  private static IntBuffer grow(IntBuffer b) {
+    IntBuffer g = BufferUtils.createIntBuffer(b.capacity() * 2);
+    return g.put(b.flip());
+  }
+
+  private static FloatBuffer grow(FloatBuffer b) {
+    FloatBuffer g = BufferUtils.createFloatBuffer(b.capacity() * 2);
+    return g.put(b.flip());
+  }
+
+  public void draw() {
+    if(queued == 0) return;
+
+    glBindVertexArray(vao);
+    int type = QuadIndexBuffer.bind(maxQueuedVertices);
+
+    if(indirect) {
+      glBindBuffer(GL_ARRAY_BUFFER, originVbo);
+      glBufferData(GL_ARRAY_BUFFER, origins.flip(), GL_STREAM_DRAW);
+      glBindBuffer(GL_ARRAY_BUFFER, 0);
+
+      glBindBuffer(GL_DRAW_INDIRECT_BUFFER, commandVbo);
+      glBufferData(GL_DRAW_INDIRECT_BUFFER, commands.flip(), GL_STREAM_DRAW);
+      glMultiDrawElementsIndirect(GL_TRIANGLES, type, 0L, queued, 0);
+      glBindBuffer(GL_DRAW_INDIRECT_BUFFER, 0);
+      drawCalls++;
+    } else {
+      for(int i = 0; i < queued; i++) {
+        glVertexAttrib3f(ORIGIN_ATTRIB, origins.get(i * 3), origins.get(i * 3 + 1), origins.get(i * 3 + 2));
+        glDrawElementsBaseVertex(GL_TRIANGLES, commands.get(i * COMMAND_INTS), type, 0L, commands.get(i * COMMAND_INTS + 3));
+        drawCalls++;
+      }
+    }
+
+    glBindVertexArray(0);
+  }
+
+  public int queued() { return queued; }
+  public int drawCalls() { return drawCalls; }
+  public int compactions() { return compactions; }
+  public boolean isIndirect() { return indirect; }
+  public ArenaAllocator allocator() { return allocator; }
+
+  public void destroy() {
+    glDeleteBuffers(vbo);
+    glDeleteBuffers(originVbo);
+    if(commandVbo != 0) glDeleteBuffers(commandVbo);
+    glDeleteVertexArrays(vao);
+    meshes.clear();
+  }
+}
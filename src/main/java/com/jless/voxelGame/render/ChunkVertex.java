@@ -0,0 +1,45 @@
+package com.jless.voxelGame.render;
+
+// Chunk mesh vertex packed into two 32-bit words (8 bytes):
+//
+//   word 0: x:5 | y:8 | z:5 | face:3 | corner:2   (9 bits spare)
+//   word 1: tileX:8 | tileY:8                     (16 bits spare)
+//
+// Positions are chunk-local, 0..16 on x/z and 0..128 on y, so the far edge of a
+// chunk still fits. simple.vert adds the chunk's origin from the per-instance
+// aOrigin attribute, which each draw command's baseInstance selects, and derives
+// the texture coordinates from position and face.
+public final class ChunkVertex {
+
+  public static final int BYTES = 8;
+  public static final int INTS = 2;
+
+  private static final int X_SHIFT = 0;
+  private static final int Y_SHIFT = 5;
+  private static final int Z_SHIFT = 13;
+  private static final int FACE_SHIFT = 18;
+  private static final int CORNER_SHIFT = 21;
+
+  public static int packPosition(int x, int y, int z, int face, int corner) {
+    return (x & 31) << X_SHIFT
+      | (y & 255) << Y_SHIFT
+      | (z & 31) << Z_SHIFT
+      | (face & 7) << FACE_SHIFT
+      | (corner & 3) << CORNER_SHIFT;
+  }
+
+  public static int packTile(int tileX, int tileY) {
+    return (tileX & 255) | (tileY & 255) << 8;
+  }
+
+  public static int x(int word0) { return (word0 >>> X_SHIFT) & 31; }
+  public static int y(int word0) { return (word0 >>> Y_SHIFT) & 255; }
+  public static int z(int word0) { return (word0 >>> Z_SHIFT) & 31; }
+  public static int face(int word0) { return (word0 >>> FACE_SHIFT) & 7; }
+  public static int corner(int word0) { return (word0 >>> CORNER_SHIFT) & 3; }
+
+  public static int tileX(int word1) { return word1 & 255; }
+  public static int tileY(int word1) { return (word1 >>> 8) & 255; }
+
+  private ChunkVertex() {}
+}
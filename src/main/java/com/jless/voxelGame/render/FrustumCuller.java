@@ -1,5 +1,77 @@
 package com.jless.voxelGame.render;
 
+import org.joml.Matrix4f;
+
+// View frustum as six planes pulled straight out of projection * view
+// (Gribb/Hartmann). Planes point inwards and are normalised, so a box is
+// outside as soon as its most positive corner lies behind any one of them.
 public class FrustumCuller {
-    
-}
\ No newline at end of file
+
+  private static final int LEFT = 0;
+  private static final int RIGHT = 1;
+  private static final int BOTTOM = 2;
+  private static final int TOP = 3;
+  private static final int NEAR = 4;
+  private static final int FAR = 5;
+
+  // a, b, c, d for each plane; a point p is inside when a*x + b*y + c*z + d >= 0.
+  private final float[] planes = new float[6 * 4];
+  private final Matrix4f viewProj = new Matrix4f();
+
+  private int tested;
+  private int visible;
+
+  public void update(Matrix4f projection, Matrix4f view) {
+    projection.mul(view, viewProj);
+    Matrix4f m = viewProj;
+
+    plane(LEFT,   m.m03() + m.m00(), m.m13() + m.m10(), m.m23() + m.m20(), m.m33() + m.m30());
+    plane(RIGHT,  m.m03() - m.m00(), m.m13() - m.m10(), m.m23() - m.m20(), m.m33() - m.m30());
+    plane(BOTTOM, m.m03() + m.m01(), m.m13() + m.m11(), m.m23() + m.m21(), m.m33() + m.m31());
+    plane(TOP,    m.m03() - m.m01(), m.m13() - m.m11(), m.m23() - m.m21(), m.m33() - m.m31());
+    plane(NEAR,   m.m03() + m.m02(), m.m13() + m.m12(), m.m23() + m.m22(), m.m33() + m.m32());
+    plane(FAR,    m.m03() - m.m02(), m.m13() - m.m12(), m.m23() - m.m22(), m.m33() - m.m32());
+  }
+
+  private void plane(int i, float a, float b, float c, float d) {
+    float inv = 1.0f / (float)Math.sqrt(a * a + b * b + c * c);
+    int o = i * 4;
+    planes[o] = a * inv;
+    planes[o + 1] = b * inv;
+    planes[o + 2] = c * inv;
+    planes[o + 3] = d * inv;
+  }
+
+  // Conservative: may keep a box that only touches the frustum's corner region, never drops a visible one.
+  public boolean testAab(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+    tested++;
+    for(int o = 0; o < planes.length; o += 4) {
+      float a = planes[o];
+      float b = planes[o + 1];
+      float c = planes[o + 2];
+      float px = a >= 0.0f ? maxX : minX;
+      float py = b >= 0.0f ? maxY : minY;
+      float pz = c >= 0.0f ? maxZ : minZ;
+      if(a * px + b * py + c * pz + planes[o + 3] < 0.0f) return false;
+    }
+    visible++;
+    return true;
+  }
+
+  public boolean testPoint(float x, float y, float z) {
+    for(int o = 0; o < planes.length; o += 4) {
+      if(planes[o] * x + planes[o + 1] * y + planes[o + 2] * z + planes[o + 3] < 0.0f) return false;
+    }
+    return true;
+  }
+
+  // Resets the per-frame counters.
+  public void beginFrame() {
+    tested = 0;
+    visible = 0;
+  }
+
+  public int tested() { return tested; }
+  public int visible() { return visible; }
+  public int culled() { return tested - visible; }
+}
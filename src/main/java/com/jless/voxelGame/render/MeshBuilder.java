@@ -0,0 +1,55 @@
+package com.jless.voxelGame.render;
+
+import java.nio.IntBuffer;
+
+import org.lwjgl.BufferUtils;
+
+// CPU-side chunk geometry in the packed ChunkVertex format. Vertices come in groups
+// of four per quad; indices are supplied by QuadIndexBuffer at draw time.
+public class MeshBuilder {
+
+  private IntBuffer verts;
+
+  public MeshBuilder() {
+    this(4096);
+  }
+
+  public MeshBuilder(int initialVertices) {
+    verts = BufferUtils.createIntBuffer(initialVertices * ChunkVertex.INTS);
+  }
+
+  public void reset() {
+    verts.clear();
+  }
+
+  public int vertexCount() {
+    return verts.position() / ChunkVertex.INTS;
+  }
+
+  public int quadCount() {
+    return vertexCount() / 4;
+  }
+
+  public boolean isEmpty() {
+    return verts.position() == 0;
+  }
+
+  public void ensureCapacity(int vertices) {
+    int need = verts.position() + vertices * ChunkVertex.INTS;
+    if(need > verts.capacity()) {
+      IntBuffer grown = BufferUtils.createIntBuffer(Math.max(need, verts.capacity() * 2));
+      verts.flip();
+      grown.put(verts);
+      verts = grown;
+    }
+  }
+
+  public void vertex(int position, int tile) {
+    verts.put(position).put(tile);
+  }
+
+  // Flips the buffer for upload; call reset() before writing again.
+  public IntBuffer vertices() {
+    return verts.flip();
+  }
+}
@@ -0,0 +1,83 @@
+package com.jless.voxelGame.render;
+
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_INT;
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_SHORT;
+import static org.lwjgl.opengl.GL15.*;
+
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+import org.lwjgl.BufferUtils;
+
+// Element buffer shared by every chunk mesh. Chunk geometry is nothing but quads,
+// each drawn as 0-1-2 2-3-0 from its four vertices, so one buffer covering the
+// largest mesh serves all of them. Meshes up to 65536 vertices use the 16-bit
+// buffer; larger ones use a 32-bit buffer that grows on demand. Growing re-specifies
+// the same buffer name, so VAOs that already reference it stay valid. GL thread only.
+public final class QuadIndexBuffer {
+
+  public static final int INDICES_PER_QUAD = 6;
+  public static final int MAX_SHORT_VERTICES = 1 << 16;
+
+  private static int ebo16;
+  private static int ebo32;
+  private static int quads32;
+
+  public static int elementType(int vertexCount) {
+    return vertexCount <= MAX_SHORT_VERTICES ? GL_UNSIGNED_SHORT : GL_UNSIGNED_INT;
+  }
+
+  // Binds the shared buffer to the currently bound VAO and returns its element type.
+  public static int bind(int vertexCount) {
+    int quads = vertexCount / 4;
+    if(vertexCount <= MAX_SHORT_VERTICES) {
+      if(ebo16 == 0) {
+        ebo16 = glGenBuffers();
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo16);
+        ShortBuffer data = BufferUtils.createShortBuffer(MAX_SHORT_VERTICES / 4 * INDICES_PER_QUAD);
+        fill(data, MAX_SHORT_VERTICES / 4);
+        glBufferData(GL_ELEMENT_ARRAY_BUFFER, data.flip(), GL_STATIC_DRAW);
+      } else {
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo16);
+      }
+      return GL_UNSIGNED_SHORT;
+    }
+
+    if(ebo32 == 0) ebo32 = glGenBuffers();
+    glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo32);
+    if(quads > quads32) {
+      int grown = Math.max(quads, quads32 * 2);
+      IntBuffer data = BufferUtils.createIntBuffer(grown * INDICES_PER_QUAD);
+      fill(data, grown);
+      glBufferData(GL_ELEMENT_ARRAY_BUFFER, data.flip(), GL_STATIC_DRAW);
+      quads32 = grown;
+    }
+    return GL_UNSIGNED_INT;
+  }
+
+  static void fill(ShortBuffer out, int quads) {
+    for(int q = 0; q < quads; q++) {
+      int v = q * 4;
+      out.put((short)v).put((short)(v + 1)).put((short)(v + 2));
+      out.put((short)(v + 2)).put((short)(v + 3)).put((short)v);
+    }
+  }
+
+  static void fill(IntBuffer out, int quads) {
+    for(int q = 0; q < quads; q++) {
+      int v = q * 4;
+      out.put(v).put(v + 1).put(v + 2);
+      out.put(v + 2).put(v + 3).put(v);
+    }
+  }
+
+  public static void destroy() {
+    if(ebo16 != 0) glDeleteBuffers(ebo16);
+    if(ebo32 != 0) glDeleteBuffers(ebo32);
+    ebo16 = 0;
+    ebo32 = 0;
+    quads32 = 0;
+  }
+
+  private QuadIndexBuffer() {}
+}
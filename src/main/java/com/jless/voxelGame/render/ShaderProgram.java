@@ -106,4 +106,12 @@ public class ShaderProgram {
   public void setInt(String name, int value) {
     glUniform1i(uniform(name), value);
   }
+
+  public void setVec2(String name, float x, float y) {
+    glUniform2f(uniform(name), x, y);
+  }
+
+  public void setVec3(String name, float x, float y, float z) {
+    glUniform3f(uniform(name), x, y, z);
+  }
 }
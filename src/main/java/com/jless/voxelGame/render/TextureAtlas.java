@@ -6,6 +6,7 @@ public class TextureAtlas {
   private final int tilesY;
   private final float tileW;
   private final float tileH;
+  private final UVRect[] rects;
 
   public TextureAtlas(int atlasWpx, int atlasHpx, int tileSizePX) {
     this.tilesX = atlasWpx / tileSizePX;
@@ -13,6 +14,13 @@ public class TextureAtlas {
 
     this.tileW = 1.0f / tilesX;
     this.tileH = 1.0f / tilesY;
+
+    rects = new UVRect[tilesX * tilesY];
+    for(int ty = 0; ty < tilesY; ty++) {
+      for(int tx = 0; tx < tilesX; tx++) {
+        rects[tx + ty * tilesX] = computeUVRect(tx, ty);
+      }
+    }
   }
 
   public static int tile(int x, int y) {
@@ -40,11 +48,18 @@ public class TextureAtlas {
 
   public int tilesX() { return tilesX; }
   public int tilesY() { return tilesY; }
+  public float tileW() { return tileW; }
+  public float tileH() { return tileH; }
 
   public UVRect getUVRect(int packedTile) {
     int tx = tileX(packedTile);
     int ty = tileY(packedTile);
 
+    if(tx < tilesX && ty < tilesY) return rects[tx + ty * tilesX];
+    return computeUVRect(tx, ty);
+  }
+
+  private UVRect computeUVRect(int tx, int ty) {
     float u0 = tx * tileW;
     float v0 = ty * tileH;
 
@@ -5,6 +5,9 @@ import com.jless.voxelGame.render.TextureAtlas;
 public class Blocks {
 
   public static final boolean[] SOLID = new boolean[256];
+  // Light lost entering the block on top of the usual 1 per step; 15 blocks light.
+  public static final int[] LIGHT_OPACITY = new int[256];
+  public static final int[] LIGHT_EMISSION = new int[256];
 
   public static final int[] TEX_TOP = new int[256];
   public static final int[] TEX_BOTTOM = new int[256];
@@ -123,12 +126,25 @@ public class Blocks {
     TEX_TOP[BlockID.BEDROCK & 0xFF] = TextureAtlas.tile(0, 0);
     TEX_BOTTOM[BlockID.BEDROCK & 0xFF] = TextureAtlas.tile(0, 0);
     TEX_SIDE[BlockID.BEDROCK & 0xFF] = TextureAtlas.tile(0, 0);
+
+    for(int i = 0; i < 256; i++) LIGHT_OPACITY[i] = SOLID[i] ? 15 : 0;
+    LIGHT_OPACITY[BlockID.GLASS & 0xFF] = 0;
+    LIGHT_OPACITY[BlockID.OAK_LEAVES & 0xFF] = 1;
+    LIGHT_EMISSION[BlockID.FURNACE & 0xFF] = 13;
   }
 
   public static boolean isSolid(byte id) {
     return SOLID[id & 0xFF];
   }
 
+  public static int opacity(byte id) {
+    return LIGHT_OPACITY[id & 0xFF];
+  }
+
+  public static int emission(byte id) {
+    return LIGHT_EMISSION[id & 0xFF];
+  }
+
   public static int getTile(byte id, Face face) {
     int i = id & 0xFF;
     return switch(face) {
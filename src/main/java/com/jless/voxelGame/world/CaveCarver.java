@@ -0,0 +1,92 @@
+package com.jless.voxelGame.world;
+
+import com.jless.voxelGame.Consts;
+
+// Hollows out stone wherever 3D noise rises above a threshold. Like the height
+// lattice, the noise is sampled coarsely (every 4 blocks across, 8 up) and
+// interpolated, which is plenty for blobby caves. Only stone below each column's
+// surface layer is carved, so caves never undercut the grass.
+class CaveCarver {
+
+  private static final int STEP_XZ = 4;
+  private static final int STEP_Y = 8;
+  private static final int MIN_Y = 4;
+  private static final float FREQ = 1.0f / 40.0f;
+  // Caves are flatter than they are wide.
+  private static final float FREQ_Y = 1.0f / 20.0f;
+
+  private final Perlin perlin;
+  private final float threshold;
+
+  CaveCarver(long seed, float threshold) {
+    perlin = new Perlin(seed * 0x5DEECE66DL + 11L);
+    this.threshold = threshold;
+  }
+
+  // Returns the number of blocks carved.
+  int carve(Chunk c, GenColumns cols) {
+    if(cols.maxStoneTop <= MIN_Y) return 0;
+
+    int nx = Consts.CHUNK_X / STEP_XZ + 1;
+    int nz = Consts.CHUNK_Z / STEP_XZ + 1;
+    int ny = (cols.maxStoneTop + STEP_Y - 1) / STEP_Y + 1;
+    int baseX = c.cx * Consts.CHUNK_X;
+    int baseZ = c.cz * Consts.CHUNK_Z;
+
+    float[] lattice = new float[nx * nz * ny];
+    for(int k = 0; k < nz; k++) {
+      for(int i = 0; i < nx; i++) {
+        float x = (baseX + i * STEP_XZ) * FREQ;
+        float z = (baseZ + k * STEP_XZ) * FREQ;
+        for(int j = 0; j < ny; j++) {
+          lattice[(i + k * nx) * ny + j] = perlin.noise3(x, j * STEP_Y * FREQ_Y, z);
+        }
+      }
+    }
+
+    // Bilinear in xz at every lattice level of the column, then linear in y.
+    float[] levels = new float[ny];
+    int carved = 0;
+    for(int lz = 0; lz < Consts.CHUNK_Z; lz++) {
+      int k = lz / STEP_XZ;
+      float tz = (float)(lz % STEP_XZ) / STEP_XZ;
+      for(int lx = 0; lx < Consts.CHUNK_X; lx++) {
+        int top = Math.min(cols.stoneTop[GenColumns.index(lx, lz)], Consts.CHUNK_Y);
+        if(top <= MIN_Y) continue;
+
+        int i = lx / STEP_XZ;
+        float tx = (float)(lx % STEP_XZ) / STEP_XZ;
+        int jMax = (top - 1) / STEP_Y + 1;
+        for(int j = 0; j <= jMax; j++) {
+          float a = lattice[(i + k * nx) * ny + j];
+          float b = lattice[(i + 1 + k * nx) * ny + j];
+          float cc = lattice[(i + (k + 1) * nx) * ny + j];
+          float d = lattice[(i + 1 + (k + 1) * nx) * ny + j];
+          float near = a + (b - a) * tx;
+          float far = cc + (d - cc) * tx;
+          levels[j] = near + (far - near) * tz;
+        }
+
+        // Everything below the stone top is still stone, so each run above the
+        // threshold is carved with one column fill.
+        int run = -1;
+        for(int y = MIN_Y; y <= top; y++) {
+          boolean hollow = false;
+          if(y < top) {
+            int j = y / STEP_Y;
+            float ty = (float)(y % STEP_Y) / STEP_Y;
+            hollow = levels[j] + (levels[j + 1] - levels[j]) * ty > threshold;
+          }
+          if(hollow) {
+            if(run < 0) run = y;
+          } else if(run >= 0) {
+            c.fillColumn(lx, lz, run, y, BlockID.AIR);
+            carved += y - run;
+            run = -1;
+          }
+        }
+      }
+    }
+    return carved;
+  }
+}
@@ -1,27 +1,64 @@
 package com.jless.voxelGame.world;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.StampedLock;
+
 import com.jless.voxelGame.Consts;
 import com.jless.voxelGame.render.Mesh;
 
+// Block data is guarded by a StampedLock. Single-block reads are optimistic: they
+// read without locking and retry under the read lock only if a write overlapped,
+// so getLocal stays lock-free unless it races an edit. Writes take the write lock;
+// multi-block readers (snapshots, saving) hold the read lock for the whole copy.
 public class Chunk {
 
+  // applyEdits result bits: some block changed, and which edges a change touched.
+  static final int EDITED = 1;
+  static final int EDGE_WEST = 1 << 1;
+  static final int EDGE_EAST = 1 << 2;
+  static final int EDGE_NORTH = 1 << 3;
+  static final int EDGE_SOUTH = 1 << 4;
+
   public Mesh mesh;
+  // Vertical extent of the mesh, used for culling.
+  public int meshMinY;
+  public int meshMaxY = Consts.CHUNK_Y;
+  // Frame of the last residency lookup; used as the LRU tie-breaker when evicting.
+  public long lastAccess;
 
-  private final byte[] blocks;
+  // Null entries are all air.
+  private final ChunkSection[] sections = new ChunkSection[Consts.SECTIONS];
+  private final StampedLock lock = new StampedLock();
+  // Sky and block light per section. Written by LightEngine only: before the chunk
+  // is published, or later under the engine's lock. Other threads may read while
+  // a level is being written and see the old or the new value (see NibbleArray).
+  private final NibbleArray[] skyLight = new NibbleArray[Consts.SECTIONS];
+  private final NibbleArray[] blockLight = new NibbleArray[Consts.SECTIONS];
   public final int cx;
   public final int cz;
+  public final long key;
 
-  private boolean dirty = true;
+  // The mesh is rebuilt for the whole chunk, so dirtiness is per chunk too.
+  private volatile boolean dirty = true;
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  // Set while the chunk is in a ChunkMap; written by the map under its lock.
+  volatile boolean mapped;
+  // Latest meshing job submitted for this chunk; main thread only.
+  int meshTicket;
+  private volatile int version;
+  private volatile int savedVersion = -1;
+  private final AtomicReference<ChunkState> state = new AtomicReference<>(ChunkState.QUEUED);
 
   public Chunk(int cx, int cz) {
     this.cx = cx;
     this.cz = cz;
-
-    blocks = new byte[Consts.CHUNK_X * Consts.CHUNK_Y * Consts.CHUNK_Z];
-  }
-
-  private int index(int x, int y, int z) {
-    return x + Consts.CHUNK_X * (z + Consts.CHUNK_Z * y);
+    this.key = ChunkPos.pack(cx, cz);
+    for(int i = 0; i < Consts.SECTIONS; i++) {
+      skyLight[i] = new NibbleArray(0);
+      blockLight[i] = new NibbleArray(0);
+    }
   }
 
   public boolean inBounds(int x, int y, int z) {
@@ -32,15 +69,362 @@ public class Chunk {
 
   public byte getLocal(int x, int y, int z) {
     if(!inBounds(x, y, z)) return BlockID.AIR;
-    return blocks[index(x, y, z)];
+
+    long stamp = lock.tryOptimisticRead();
+    if(stamp != 0) {
+      try {
+        byte id = read(x, y, z);
+        if(lock.validate(stamp)) return id;
+      } catch(RuntimeException e) {
+        // A concurrent repack can leave the storage briefly inconsistent; retry locked.
+      }
+    }
+
+    stamp = lock.readLock();
+    try {
+      return read(x, y, z);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private byte read(int x, int y, int z) {
+    ChunkSection s = sections[y >> Consts.SECTION_SHIFT];
+    if(s == null) return BlockID.AIR;
+    return s.get(x, y & (Consts.SECTION_SIZE - 1), z);
+  }
+
+  // Above the chunk is open sky.
+  public int getSkyLight(int x, int y, int z) {
+    if(y >= Consts.CHUNK_Y) return LightEngine.MAX;
+    if(!inBounds(x, y, z)) return 0;
+    return skyLight[y >> Consts.SECTION_SHIFT].get(ChunkSection.index(x, y & (Consts.SECTION_SIZE - 1), z));
+  }
+
+  public int getBlockLight(int x, int y, int z) {
+    if(!inBounds(x, y, z)) return 0;
+    return blockLight[y >> Consts.SECTION_SHIFT].get(ChunkSection.index(x, y & (Consts.SECTION_SIZE - 1), z));
+  }
+
+  // No bounds checks; LightEngine only passes cells inside the chunk.
+  int getLight(boolean sky, int x, int y, int z) {
+    NibbleArray[] light = sky ? skyLight : blockLight;
+    return light[y >> Consts.SECTION_SHIFT].get(ChunkSection.index(x, y & (Consts.SECTION_SIZE - 1), z));
+  }
+
+  void setLight(boolean sky, int x, int y, int z, int level) {
+    NibbleArray[] light = sky ? skyLight : blockLight;
+    light[y >> Consts.SECTION_SHIFT].set(ChunkSection.index(x, y & (Consts.SECTION_SIZE - 1), z), level);
+  }
+
+  // Replaces all light from whole-chunk arrays indexed like copyBlocks.
+  void loadLight(byte[] sky, byte[] block) {
+    for(int sy = 0; sy < Consts.SECTIONS; sy++) {
+      skyLight[sy].load(sky, sy << Consts.SECTION_SHIFT, Consts.CHUNK_Y);
+      blockLight[sy].load(block, sy << Consts.SECTION_SHIFT, Consts.CHUNK_Y);
+    }
+  }
+
+  // Copies every block into dst[y + CHUNK_Y * (x + CHUNK_X * z)].
+  void copyBlocks(byte[] dst) {
+    long stamp = lock.readLock();
+    try {
+      for(int z = 0; z < Consts.CHUNK_Z; z++) {
+        for(int x = 0; x < Consts.CHUNK_X; x++) {
+          int base = Consts.CHUNK_Y * (x + Consts.CHUNK_X * z);
+          for(int sy = 0; sy < Consts.SECTIONS; sy++) {
+            int off = base + (sy << Consts.SECTION_SHIFT);
+            ChunkSection s = sections[sy];
+            if(s == null) Arrays.fill(dst, off, off + Consts.SECTION_SIZE, BlockID.AIR);
+            else s.copyColumn(x, z, dst, off);
+          }
+        }
+      }
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  // Bit sy is set if section sy may hold a light source.
+  int emitterSections() {
+    long stamp = lock.readLock();
+    try {
+      int mask = 0;
+      for(int sy = 0; sy < Consts.SECTIONS; sy++) {
+        if(sections[sy] != null && sections[sy].mayEmitLight()) mask |= 1 << sy;
+      }
+      return mask;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  // Held around multi-block reads such as snapshot capture and saving.
+  long lockRead() {
+    return lock.readLock();
+  }
+
+  void unlockRead(long stamp) {
+    lock.unlockRead(stamp);
+  }
+
+  // Returns true if the block actually changed.
+  public boolean setLocal(int x, int y, int z, byte id) {
+    if(!inBounds(x, y, z)) return false;
+
+    long stamp = lock.writeLock();
+    try {
+      if(!write(x, y, z, id)) return false;
+      version++;
+      markDirty();
+      return true;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  private boolean write(int x, int y, int z, byte id) {
+    int sy = y >> Consts.SECTION_SHIFT;
+    ChunkSection s = sections[sy];
+    if(s == null) {
+      if(id == BlockID.AIR) return false;
+      s = new ChunkSection();
+      sections[sy] = s;
+    }
+
+    if(s.set(x, y & (Consts.SECTION_SIZE - 1), z, id) == id) return false;
+    if(s.isEmpty()) sections[sy] = null;
+    return true;
+  }
+
+  // Replaces from with to at each of positions[0, n), in order, under one write lock.
+  // Returns the number of blocks changed.
+  int replaceEach(int[] positions, int n, byte from, byte to) {
+    if(from == to) return 0;
+    int changed = 0;
+
+    long stamp = lock.writeLock();
+    try {
+      for(int i = 0; i < n; i++) {
+        int p = positions[i];
+        int x = p & 15;
+        int z = (p >>> 4) & 15;
+        int y = p >>> 8;
+        ChunkSection s = sections[y >> Consts.SECTION_SHIFT];
+        byte id = s == null ? BlockID.AIR : s.get(x, y & (Consts.SECTION_SIZE - 1), z);
+        if(id == from && write(x, y, z, to)) changed++;
+      }
+      if(changed != 0) {
+        version++;
+        markDirty();
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    return changed;
+  }
+
+  // Local position packed as x | z << 4 | y << 8, the form EditBatch groups by.
+  static int packLocal(int x, int y, int z) {
+    return x | z << 4 | y << 8;
+  }
+
+  // Applies positions[i] = ids[i] for i in [from, to), in order, under one write lock.
+  // Returns 0 if nothing changed, otherwise EDITED plus an EDGE_ bit for each chunk
+  // edge a changed block lies on. Marking the chunk and its neighbours dirty is left
+  // to the caller.
+  int applyEdits(int[] positions, byte[] ids, int from, int to) {
+    int result = 0;
+
+    long stamp = lock.writeLock();
+    try {
+      for(int i = from; i < to; i++) {
+        int p = positions[i];
+        int x = p & 15;
+        int z = (p >>> 4) & 15;
+        int y = p >>> 8;
+        if(!write(x, y, z, ids[i])) continue;
+
+        result |= EDITED;
+        if(x == 0) result |= EDGE_WEST;
+        if(x == Consts.CHUNK_X - 1) result |= EDGE_EAST;
+        if(z == 0) result |= EDGE_NORTH;
+        if(z == Consts.CHUNK_Z - 1) result |= EDGE_SOUTH;
+      }
+      if(result != 0) version++;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    return result;
+  }
+
+  // Sets y in [yFrom, yTo) of column (x, z) to id with one range fill per section.
+  public void fillColumn(int x, int z, int yFrom, int yTo, byte id) {
+    fillBox(x, yFrom, z, x + 1, yTo, z + 1, id);
+  }
+
+  // Fills the box [x0, x1) x [y0, y1) x [z0, z1), clipped to the chunk. Sections the
+  // box covers completely become uniform; the rest are filled a column run at a time.
+  // Returns the mask of sections that actually changed and marks the chunk dirty if any did.
+  public int fillBox(int x0, int y0, int z0, int x1, int y1, int z1, byte id) {
+    x0 = Math.max(x0, 0);
+    y0 = Math.max(y0, 0);
+    z0 = Math.max(z0, 0);
+    x1 = Math.min(x1, Consts.CHUNK_X);
+    y1 = Math.min(y1, Consts.CHUNK_Y);
+    z1 = Math.min(z1, Consts.CHUNK_Z);
+    if(x0 >= x1 || y0 >= y1 || z0 >= z1) return 0;
+
+    long stamp = lock.writeLock();
+    try {
+      return fill(x0, y0, z0, x1, y1, z1, id);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  // Replaces every from block in the box with to, clipped like fillBox. Returns the
+  // mask of sections that actually changed and marks the chunk dirty if any did.
+  public int replaceBox(int x0, int y0, int z0, int x1, int y1, int z1, byte from, byte to) {
+    x0 = Math.max(x0, 0);
+    y0 = Math.max(y0, 0);
+    z0 = Math.max(z0, 0);
+    x1 = Math.min(x1, Consts.CHUNK_X);
+    y1 = Math.min(y1, Consts.CHUNK_Y);
+    z1 = Math.min(z1, Consts.CHUNK_Z);
+    if(x0 >= x1 || y0 >= y1 || z0 >= z1 || from == to) return 0;
+
+    long stamp = lock.writeLock();
+    try {
+      int changed = 0;
+      for(int sy = y0 >> Consts.SECTION_SHIFT; sy <= (y1 - 1) >> Consts.SECTION_SHIFT; sy++) {
+        int base = sy << Consts.SECTION_SHIFT;
+        ChunkSection s = sections[sy];
+        if(s == null) {
+          // An absent section is all air.
+          if(from != BlockID.AIR) continue;
+          s = new ChunkSection();
+          sections[sy] = s;
+        }
+
+        int n = s.replace(x0, z0, x1, z1, Math.max(y0 - base, 0), Math.min(y1 - base, Consts.SECTION_SIZE), from, to);
+        if(s.isEmpty()) sections[sy] = null;
+        if(n > 0) changed |= 1 << sy;
+      }
+
+      if(changed != 0) {
+        version++;
+        markDirty();
+      }
+      return changed;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  private int fill(int x0, int y0, int z0, int x1, int y1, int z1, byte id) {
+    boolean wholeLayer = x0 == 0 && z0 == 0 && x1 == Consts.CHUNK_X && z1 == Consts.CHUNK_Z;
+    int changed = 0;
+    for(int sy = y0 >> Consts.SECTION_SHIFT; sy <= (y1 - 1) >> Consts.SECTION_SHIFT; sy++) {
+      int base = sy << Consts.SECTION_SHIFT;
+      int lyFrom = Math.max(y0 - base, 0);
+      int lyTo = Math.min(y1 - base, Consts.SECTION_SIZE);
+
+      ChunkSection s = sections[sy];
+      if(s == null) {
+        if(id == BlockID.AIR) continue;
+        s = new ChunkSection();
+        sections[sy] = s;
+      }
+
+      int n = 0;
+      if(wholeLayer && lyFrom == 0 && lyTo == Consts.SECTION_SIZE) {
+        n = s.fillAll(id);
+      } else {
+        for(int z = z0; z < z1; z++) {
+          for(int x = x0; x < x1; x++) n += s.fillColumn(x, z, lyFrom, lyTo, id);
+        }
+      }
+      if(s.isEmpty()) sections[sy] = null;
+      if(n > 0) changed |= 1 << sy;
+    }
+
+    if(changed == 0) return 0;
+    version++;
+    markDirty();
+    return changed;
   }
 
-  public void setLocal(int x, int y, int z, byte id) {
-    if(!inBounds(x, y, z)) return;
+  // Only for use under lockRead or on a chunk no other thread can see yet.
+  public ChunkSection section(int sy) {
+    return sections[sy];
+  }
+
+  void setSection(int sy, ChunkSection s) {
+    long stamp = lock.writeLock();
+    try {
+      sections[sy] = s == null || s.isEmpty() ? null : s;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  public boolean isSectionEmpty(int sy) {
+    return sections[sy] == null;
+  }
+
+  public boolean isSectionFull(int sy) {
+    ChunkSection s = sections[sy];
+    return s != null && s.isFull();
+  }
+
+  public int nonAirCount() {
+    int n = 0;
+    for(ChunkSection s : sections) {
+      if(s != null) n += s.nonAirCount();
+    }
+    return n;
+  }
+
+  // Bumped on every edit so async work started from an older snapshot can be recognised as stale.
+  public int version() {
+    return version;
+  }
 
-    int idx = index(x, y, z);
-    blocks[idx] = id;
-    dirty = true;
+  // Shrinks each section's storage to the narrowest palette for its current contents.
+  public void compact() {
+    long stamp = lock.writeLock();
+    try {
+      for(ChunkSection s : sections) {
+        if(s != null) s.compact();
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  public long memoryBytes() {
+    long stamp = lock.readLock();
+    try {
+      long bytes = 64 + 16 + sections.length * 4L;
+      for(ChunkSection s : sections) {
+        if(s != null) bytes += s.memoryBytes();
+      }
+      for(int sy = 0; sy < Consts.SECTIONS; sy++) {
+        bytes += skyLight[sy].memoryBytes() + blockLight[sy].memoryBytes();
+      }
+      return bytes;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  public boolean needsSave() {
+    return savedVersion != version;
+  }
+
+  public void markSaved(int savedAt) {
+    savedVersion = savedAt;
   }
 
   public boolean isDirty() {
@@ -50,4 +434,37 @@ public class Chunk {
   public void clearDirty() {
     dirty = false;
   }
+
+  public void markDirty() {
+    if(!dirty) dirty = true;
+  }
+
+  boolean markScheduled() {
+    return scheduled.compareAndSet(false, true);
+  }
+
+  void clearScheduled() {
+    scheduled.set(false);
+  }
+
+  public ChunkState state() {
+    return state.get();
+  }
+
+  public void setState(ChunkState s) {
+    state.set(s);
+  }
+
+  public boolean casState(ChunkState expect, ChunkState update) {
+    return state.compareAndSet(expect, update);
+  }
+
+  public boolean isGenerated() {
+    ChunkState s = state.get();
+    return s == ChunkState.GENERATED || s == ChunkState.MESHED;
+  }
+
+  public boolean isUnloaded() {
+    return state.get() == ChunkState.UNLOADED;
+  }
 }
@@ -0,0 +1,110 @@
+package com.jless.voxelGame.world;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.jless.voxelGame.Consts;
+
+// Keeps the loaded chunk set under a heap budget. When over budget the chunks
+// farthest from the player are evicted first, least recently used among equals.
+// Eviction hands chunks with unsaved edits to the save hook, drops them from the
+// world and frees their GPU mesh, so it must run on the GL thread.
+public class ChunkCache {
+
+  public interface SaveHook {
+    void save(Chunk c);
+  }
+
+  private final World world;
+  private final List<Chunk> candidates = new ArrayList<>();
+
+  private long budgetBytes;
+  private SaveHook saveHook;
+
+  private long frame;
+  private long residentBytes;
+  private long meshBytes;
+  private long evictions;
+
+  public ChunkCache(World world, long budgetBytes) {
+    this.world = world;
+    this.budgetBytes = budgetBytes;
+  }
+
+  public void setBudget(long budgetBytes) {
+    this.budgetBytes = budgetBytes;
+  }
+
+  public long budget() {
+    return budgetBytes;
+  }
+
+  public void setSaveHook(SaveHook hook) {
+    this.saveHook = hook;
+  }
+
+  // Call once per frame with the player's world position. Returns the number of chunks evicted.
+  public int update(float px, float pz) {
+    world.setAccessClock(++frame);
+
+    residentBytes = 0;
+    meshBytes = 0;
+    for(Chunk c : world.chunks()) {
+      residentBytes += c.memoryBytes();
+      if(c.mesh != null) meshBytes += c.mesh.sizeBytes();
+    }
+    if(residentBytes <= budgetBytes) return 0;
+
+    float pcx = px / Consts.CHUNK_X - 0.5f;
+    float pcz = pz / Consts.CHUNK_Z - 0.5f;
+
+    candidates.clear();
+    for(Chunk c : world.chunks()) candidates.add(c);
+    candidates.sort(Comparator
+      .comparingDouble((Chunk c) -> -distSq(c, pcx, pcz))
+      .thenComparingLong(c -> c.lastAccess));
+
+    int evicted = 0;
+    for(Chunk c : candidates) {
+      if(residentBytes <= budgetBytes) break;
+      residentBytes -= c.memoryBytes();
+      if(c.mesh != null) meshBytes -= c.mesh.sizeBytes();
+      evict(c);
+      evicted++;
+    }
+    candidates.clear();
+    return evicted;
+  }
+
+  private static double distSq(Chunk c, float pcx, float pcz) {
+    float dx = c.cx - pcx;
+    float dz = c.cz - pcz;
+    return dx * dx + dz * dz;
+  }
+
+  public void evict(Chunk c) {
+    if(saveHook != null && c.needsSave()) saveHook.save(c);
+
+    world.unloadChunk(c.cx, c.cz);
+
+    if(c.mesh != null) {
+      c.mesh.destroy();
+      c.mesh = null;
+    }
+    evictions++;
+  }
+
+  public long hits() { return world.hits(); }
+  public long misses() { return world.misses(); }
+  public long evictions() { return evictions; }
+  public long residentBytes() { return residentBytes; }
+  public long meshBytes() { return meshBytes; }
+
+  @Override
+  public String toString() {
+    return String.format("chunks=%d heap=%.1f/%.1fMB gpu=%.1fMB hits=%d misses=%d evictions=%d",
+      world.chunkCount(), residentBytes / 1048576.0, budgetBytes / 1048576.0, meshBytes / 1048576.0,
+      hits(), misses(), evictions);
+  }
+}
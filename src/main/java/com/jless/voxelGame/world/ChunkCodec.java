@@ -0,0 +1,75 @@
+package com.jless.voxelGame.world;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.jless.voxelGame.Consts;
+
+// Uncompressed chunk payload: a bitmask of present sections, then for each present
+// section its non-air and solid counts followed by its PalettedStorage.
+public final class ChunkCodec {
+
+  // 2: sections stored column-major. 1: x-fastest layout, converted on read.
+  public static final int FORMAT = 2;
+  private static final int FORMAT_XZY = 1;
+
+  // Worst case: every section stored as raw bytes.
+  public static final int MAX_SIZE = 8 + Consts.SECTIONS * (8 + 1 + ChunkSection.VOLUME);
+
+  public static void write(Chunk c, ByteBuffer out) {
+    out.order(ByteOrder.LITTLE_ENDIAN);
+    out.put((byte)FORMAT);
+
+    int mask = 0;
+    for(int sy = 0; sy < Consts.SECTIONS; sy++) {
+      if(!c.isSectionEmpty(sy)) mask |= 1 << sy;
+    }
+    out.putInt(mask);
+
+    for(int sy = 0; sy < Consts.SECTIONS; sy++) {
+      ChunkSection s = c.section(sy);
+      if(s == null) continue;
+      out.putShort((short)s.nonAirCount());
+      out.putShort((short)s.solidCount());
+      s.storage().write(out);
+    }
+  }
+
+  // Replaces the sections of c with the stored ones.
+  public static void read(Chunk c, ByteBuffer in) {
+    in.order(ByteOrder.LITTLE_ENDIAN);
+    int format = in.get();
+    if(format != FORMAT && format != FORMAT_XZY) {
+      throw new IllegalStateException("Unsupported chunk format " + format + " for chunk " + c.cx + ", " + c.cz);
+    }
+
+    int mask = in.getInt();
+    for(int sy = 0; sy < Consts.SECTIONS; sy++) {
+      if((mask & (1 << sy)) == 0) {
+        c.setSection(sy, null);
+        continue;
+      }
+      int nonAir = in.getShort() & 0xFFFF;
+      int solid = in.getShort() & 0xFFFF;
+      PalettedStorage blocks = PalettedStorage.read(ChunkSection.VOLUME, in);
+      if(format == FORMAT_XZY) blocks = fromXzy(blocks);
+      c.setSection(sy, new ChunkSection(blocks, nonAir, solid));
+    }
+  }
+
+  private static PalettedStorage fromXzy(PalettedStorage old) {
+    if(old.isUniform()) return old;
+
+    PalettedStorage out = new PalettedStorage(ChunkSection.VOLUME, BlockID.AIR);
+    for(int i = 0; i < ChunkSection.VOLUME; i++) {
+      int x = i % Consts.CHUNK_X;
+      int z = (i / Consts.CHUNK_X) % Consts.CHUNK_Z;
+      int ly = i / (Consts.CHUNK_X * Consts.CHUNK_Z);
+      out.set(ChunkSection.index(x, ly, z), old.get(i));
+    }
+    out.compact();
+    return out;
+  }
+
+  private ChunkCodec() {}
+}
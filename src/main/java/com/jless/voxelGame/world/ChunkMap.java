@@ -0,0 +1,183 @@
+package com.jless.voxelGame.world;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Open-addressing map from packed chunk coordinates to chunks. The chunk itself
+// carries its key, so a slot is a single reference and lookups never allocate.
+// Reads are lock-free; writers synchronise on the map. Removal leaves a tombstone
+// so a concurrent reader never misses an entry that is still present. A chunk
+// belongs to at most one map; its mapped flag is what validates cache hits.
+public class ChunkMap implements Iterable<Chunk> {
+
+  private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Chunk[].class);
+  private static final VarHandle LAST;
+  private static final Chunk TOMBSTONE = new Chunk(Integer.MIN_VALUE, Integer.MIN_VALUE);
+
+  static {
+    try {
+      LAST = MethodHandles.lookup().findVarHandle(ChunkMap.class, "last", Chunk.class);
+    } catch(ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private volatile Chunk[] table;
+  // One-entry cache for coherent access. Release/acquire rather than volatile so
+  // refreshing it on a random lookup costs a plain store. A reader can store a
+  // chunk here just after it was removed, so hits are only trusted while the
+  // chunk is still mapped.
+  private Chunk last;
+  private int size;
+  private int used;
+
+  public ChunkMap() {
+    this(64);
+  }
+
+  public ChunkMap(int expected) {
+    table = new Chunk[tableSizeFor(expected)];
+  }
+
+  private static int tableSizeFor(int expected) {
+    int n = 16;
+    while(n < expected * 2) n <<= 1;
+    return n;
+  }
+
+  public Chunk get(int cx, int cz) {
+    return get(ChunkPos.pack(cx, cz));
+  }
+
+  public Chunk get(long key) {
+    Chunk l = (Chunk)LAST.getAcquire(this);
+    if(l != null && l.key == key && l.mapped) return l;
+
+    Chunk[] t = table;
+    int mask = t.length - 1;
+    int i = ChunkPos.hash(key) & mask;
+
+    while(true) {
+      Chunk c = (Chunk)SLOTS.getAcquire(t, i);
+      if(c == null) return null;
+      if(c.key == key && c != TOMBSTONE) {
+        LAST.setRelease(this, c);
+        return c;
+      }
+      i = (i + 1) & mask;
+    }
+  }
+
+  public boolean contains(int cx, int cz) {
+    return get(cx, cz) != null;
+  }
+
+  // Inserts or replaces the chunk stored under its own coordinates. Returns the previous chunk, if any.
+  public synchronized Chunk put(Chunk chunk) {
+    if(used + 1 > table.length / 2) rehash(Math.max(size + 1, 16));
+
+    Chunk[] t = table;
+    int mask = t.length - 1;
+    int i = ChunkPos.hash(chunk.key) & mask;
+    int free = -1;
+
+    while(true) {
+      Chunk c = t[i];
+      if(c == null) break;
+      if(c == TOMBSTONE) {
+        if(free < 0) free = i;
+      } else if(c.key == chunk.key) {
+        chunk.mapped = true;
+        c.mapped = false;
+        SLOTS.setRelease(t, i, chunk);
+        if(LAST.getAcquire(this) == c) LAST.setRelease(this, chunk);
+        return c;
+      }
+      i = (i + 1) & mask;
+    }
+
+    if(free < 0) {
+      free = i;
+      used++;
+    }
+    chunk.mapped = true;
+    SLOTS.setRelease(t, free, chunk);
+    size++;
+    return null;
+  }
+
+  public synchronized Chunk remove(int cx, int cz) {
+    long key = ChunkPos.pack(cx, cz);
+
+    Chunk[] t = table;
+    int mask = t.length - 1;
+    int i = ChunkPos.hash(key) & mask;
+
+    while(true) {
+      Chunk c = t[i];
+      if(c == null) return null;
+      if(c.key == key && c != TOMBSTONE) {
+        // Cleared before the tombstone, so a cached copy is rejected from here on.
+        c.mapped = false;
+        SLOTS.setRelease(t, i, TOMBSTONE);
+        LAST.compareAndSet(this, c, null);
+        size--;
+        return c;
+      }
+      i = (i + 1) & mask;
+    }
+  }
+
+  // Rebuilds into a fresh table (dropping tombstones) and publishes it in one write.
+  private void rehash(int expected) {
+    Chunk[] old = table;
+    Chunk[] t = new Chunk[tableSizeFor(Math.max(expected, size * 2))];
+    int mask = t.length - 1;
+
+    for(Chunk c : old) {
+      if(c == null || c == TOMBSTONE) continue;
+      int i = ChunkPos.hash(c.key) & mask;
+      while(t[i] != null) i = (i + 1) & mask;
+      t[i] = c;
+    }
+    used = size;
+    table = t;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  // Weakly consistent: walks the table current at the time of the call.
+  @Override
+  public Iterator<Chunk> iterator() {
+    Chunk[] t = table;
+    return new Iterator<>() {
+      int i;
+      Chunk next = advance();
+
+      private Chunk advance() {
+        while(i < t.length) {
+          Chunk c = (Chunk)SLOTS.getAcquire(t, i++);
+          if(c != null && c != TOMBSTONE) return c;
+        }
+        return null;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next != null;
+      }
+
+      @Override
+      public Chunk next() {
+        if(next == null) throw new NoSuchElementException();
+        Chunk c = next;
+        next = advance();
+        return c;
+      }
+    };
+  }
+}
@@ -1,144 +1,333 @@
 package com.jless.voxelGame.world;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.jless.voxelGame.Consts;
-import com.jless.voxelGame.render.Mesh;
+import com.jless.voxelGame.render.ChunkVertex;
+import com.jless.voxelGame.render.MeshBuilder;
+import com.jless.voxelGame.render.QuadIndexBuffer;
 import com.jless.voxelGame.render.TextureAtlas;
 
 public class ChunkMesher {
 
-  private final List<Float> verts = new ArrayList<>();
-  private final List<Integer> inds = new ArrayList<>();
+  public enum Mode {
+    NAIVE,
+    GREEDY
+  }
 
-  public Mesh buildMesh(World world, Chunk chunk, TextureAtlas atlas) {
-    verts.clear();
-    inds.clear();
+  public static class Stats {
+    public int faces;
+    public int quads;
+    public int vertices;
+    public int indices;
 
-    int baseX = chunk.cx * Consts.CHUNK_X;
-    int baseZ = chunk.cz * Consts.CHUNK_Z;
+    void reset() {
+      faces = 0;
+      quads = 0;
+      vertices = 0;
+      indices = 0;
+    }
 
-    for(int x = 0; x < Consts.CHUNK_X; x++) {
-      for(int y = 0; y < Consts.CHUNK_Y; y++) {
-        for(int z = 0; z < Consts.CHUNK_Z; z++) {
-          byte id = chunk.getLocal(x, y, z);
-          if(id == BlockID.AIR) continue;
+    // Fraction of per-face geometry removed by merging; 0 for the naive mesher.
+    public float reduction() {
+      return faces == 0 ? 0.0f : 1.0f - (float)quads / faces;
+    }
 
-          int wx = baseX + x;
-          int wy = y;
-          int wz = baseZ + z;
+    @Override
+    public String toString() {
+      return "faces=" + faces + " quads=" + quads
+        + " verts=" + vertices + " inds=" + indices
+        + String.format(" reduction=%.1f%%", reduction() * 100.0f);
+    }
+  }
 
-          for(Face face : Face.values()) {
-            int nx = wx + face.dx;
-            int ny = wy + face.dy;
-            int nz = wz + face.dz;
-            byte nid;
+  private static final Face[] FACES = Face.values();
+  // Snapshot index offset to the neighbour across each face.
+  private static final int[] NEIGHBOUR = new int[FACES.length];
 
-            if(chunk.inBounds(nx, ny, nz)) {
-              nid = chunk.getLocal(nx, ny, nz);
-            } else {
-              nid = world.getBlock(baseX + nx, ny, baseX + nz);
-            }
+  static {
+    for(Face f : FACES) {
+      NEIGHBOUR[f.ordinal()] = f.dx * ChunkSnapshot.STRIDE_X + f.dy * ChunkSnapshot.STRIDE_Y + f.dz * ChunkSnapshot.STRIDE_Z;
+    }
+  }
+
+  private final MeshBuilder builder;
+  private final Stats stats = new Stats();
+  private final ChunkSnapshot snapshot = new ChunkSnapshot();
+  private MeshBuilder out;
+  private byte[] blocks;
+
+  private final int[] mask = new int[Consts.CHUNK_Y * Math.max(Consts.CHUNK_X, Consts.CHUNK_Z)];
+  private final int[] pos = new int[3];
+  private final int[] lo = new int[3];
+  private final int[] hi = new int[3];
+  private final boolean[] skip = new boolean[Consts.SECTIONS];
+
+  private Mode mode = Mode.NAIVE;
+
+  public ChunkMesher() {
+    this(new MeshBuilder());
+  }
+
+  public ChunkMesher(MeshBuilder builder) {
+    this.builder = builder;
+  }
+
+  public ChunkMesher(Mode mode) {
+    this(new MeshBuilder());
+    this.mode = mode;
+  }
+
+  public Mode mode() {
+    return mode;
+  }
+
+  public void setMode(Mode mode) {
+    this.mode = mode;
+  }
+
+  public Stats stats() {
+    return stats;
+  }
+
+  public MeshBuilder builder() {
+    return builder;
+  }
+
+  // Section-aligned vertical extent of the last build; geometry never leaves [minY, maxY).
+  public int minY() {
+    return lo[1];
+  }
+
+  public int maxY() {
+    return hi[1];
+  }
+
+  // Fills the reusable builder with CPU-side geometry. Returns false if the chunk has no visible faces.
+  public boolean build(World world, Chunk chunk) {
+    return build(world, chunk, builder);
+  }
+
+  // Captures the chunk into this mesher's own snapshot first.
+  public boolean build(World world, Chunk chunk, MeshBuilder target) {
+    snapshot.capture(world, chunk);
+    return build(snapshot, target);
+  }
 
-            if(Blocks.isSolid(nid)) continue;
+  // Reads nothing but the snapshot, so it is safe on any thread.
+  public boolean build(ChunkSnapshot snap, MeshBuilder target) {
+    out = target;
+    out.reset();
+    stats.reset();
+    blocks = snap.blocks;
+    lo[1] = 0;
+    hi[1] = Consts.CHUNK_Y;
+
+    if(markSkippedSections(snap)) {
+      if(mode == Mode.GREEDY) {
+        buildGreedy();
+      } else {
+        buildNaive();
+      }
+    }
+
+    blocks = null;
+    stats.vertices = out.vertexCount();
+    stats.indices = out.quadCount() * QuadIndexBuffer.INDICES_PER_QUAD;
+    return !out.isEmpty();
+  }
+
+  // Flags sections that cannot produce faces: empty ones, and solid ones enclosed by
+  // solid sections on all six sides. Also narrows the y range to scan. Returns false
+  // if nothing in the chunk needs meshing.
+  private boolean markSkippedSections(ChunkSnapshot snap) {
+    int first = -1;
+    int last = -1;
+    for(int sy = 0; sy < Consts.SECTIONS; sy++) {
+      skip[sy] = snap.isSectionEmpty(sy) || (snap.isSectionFull(sy)
+        && sy > 0 && snap.isSectionFull(sy - 1)
+        && sy < Consts.SECTIONS - 1 && snap.isSectionFull(sy + 1)
+        && (snap.neighbourFullSections & (1 << sy)) != 0);
+
+      if(!skip[sy]) {
+        if(first < 0) first = sy;
+        last = sy;
+      }
+    }
+    if(first < 0) return false;
+
+    lo[0] = 0;
+    lo[1] = first << Consts.SECTION_SHIFT;
+    lo[2] = 0;
+    hi[0] = Consts.CHUNK_X;
+    hi[1] = (last + 1) << Consts.SECTION_SHIFT;
+    hi[2] = Consts.CHUNK_Z;
+    return true;
+  }
+
+  // Walks each column bottom up, which is the snapshot's contiguous axis.
+  private void buildNaive() {
+    for(int z = 0; z < Consts.CHUNK_Z; z++) {
+      for(int x = 0; x < Consts.CHUNK_X; x++) {
+        int column = ChunkSnapshot.index(x, 0, z);
+
+        for(int y = lo[1]; y < hi[1]; y++) {
+          if(skip[y >> Consts.SECTION_SHIFT]) {
+            y |= Consts.SECTION_SIZE - 1;
+            continue;
+          }
+
+          int i = column + y;
+          byte id = blocks[i];
+          if(id == BlockID.AIR) continue;
+
+          for(Face face : FACES) {
+            if(Blocks.isSolid(blocks[i + NEIGHBOUR[face.ordinal()]])) continue;
 
             int tile = Blocks.getTile(id, face);
-            addFace(atlas, face, wx, wy, wz, tile);
+            addFace(face, x, y, z, 1, 1, 1, tile);
+            stats.faces++;
+            stats.quads++;
           }
         }
       }
     }
+  }
 
-    if(inds.isEmpty()) return null;
+  // Sweeps each face direction slice by slice, building a 2D mask of visible tiles
+  // and merging runs with the same tile into the largest rectangles it can.
+  private void buildGreedy() {
+    for(Face face : FACES) {
+      int neighbour = NEIGHBOUR[face.ordinal()];
+      int d = face.dx != 0 ? 0 : face.dy != 0 ? 1 : 2;
+      int u = (d + 1) % 3;
+      int v = (d + 2) % 3;
+      int du = hi[u] - lo[u];
+      int dv = hi[v] - lo[v];
 
-    float[] v = new float[verts.size()];
-    for(int i = 0; i < v.length; i++) v[i] = verts.get(i);
+      for(int s = lo[d]; s < hi[d]; s++) {
+        if(d == 1 && skip[s >> Consts.SECTION_SHIFT]) continue;
+        pos[d] = s;
 
-    int[] in = new int[inds.size()];
-    for(int i = 0; i < in.length; i++) in[i] = inds.get(i);
+        int n = 0;
+        for(int j = 0; j < dv; j++) {
+          pos[v] = lo[v] + j;
+          for(int i = 0; i < du; i++, n++) {
+            pos[u] = lo[u] + i;
+            mask[n] = 0;
+            if(skip[pos[1] >> Consts.SECTION_SHIFT]) continue;
 
-    return new Mesh(v, in);
+            int b = ChunkSnapshot.index(pos[0], pos[1], pos[2]);
+            byte id = blocks[b];
+            if(id == BlockID.AIR) continue;
+            if(Blocks.isSolid(blocks[b + neighbour])) continue;
+
+            mask[n] = Blocks.getTile(id, face) + 1;
+            stats.faces++;
+          }
+        }
+
+        n = 0;
+        for(int j = 0; j < dv; j++) {
+          for(int i = 0; i < du; ) {
+            int m = mask[n];
+            if(m == 0) {
+              i++;
+              n++;
+              continue;
+            }
+
+            int w = 1;
+            while(i + w < du && mask[n + w] == m) w++;
+
+            int h = 1;
+            outer:
+            while(j + h < dv) {
+              int row = n + h * du;
+              for(int k = 0; k < w; k++) {
+                if(mask[row + k] != m) break outer;
+              }
+              h++;
+            }
+
+            for(int l = 0; l < h; l++) {
+              int row = n + l * du;
+              for(int k = 0; k < w; k++) mask[row + k] = 0;
+            }
+
+            pos[u] = lo[u] + i;
+            pos[v] = lo[v] + j;
+            int sx = d == 0 ? 1 : u == 0 ? w : h;
+            int sy = d == 1 ? 1 : u == 1 ? w : h;
+            int sz = d == 2 ? 1 : u == 2 ? w : h;
+
+            addFace(face, pos[0], pos[1], pos[2], sx, sy, sz, m - 1);
+            stats.quads++;
+
+            i += w;
+            n += w;
+          }
+        }
+      }
+    }
   }
 
-  private void addFace(TextureAtlas atlas, Face face, float x, float y, float z, int tile) {
-    TextureAtlas.UVRect uv = atlas.getUVRect(tile);
+  // Emits the given face of the box [x, x+sx] x [y, y+sy] x [z, z+sz] in chunk-local
+  // coordinates. UVs are derived from position in the shader, so only the tile is stored.
+  private void addFace(Face face, int x, int y, int z, int sx, int sy, int sz, int tile) {
+    out.ensureCapacity(4);
 
-    int startIndex = verts.size() / 5;
+    int f = face.ordinal();
+    int t = ChunkVertex.packTile(TextureAtlas.tileX(tile), TextureAtlas.tileY(tile));
 
     switch(face) {
-      case NORTH -> quad(
-        x    , y    , z,
-        x    , y + 1, z,
-        x + 1, y + 1, z,
-        x + 1, y    , z,
-        uv, startIndex
+      case NORTH -> quad(f, t,
+        x     , y     , z,
+        x     , y + sy, z,
+        x + sx, y + sy, z,
+        x + sx, y     , z
       );
-      case SOUTH -> quad(
-        x + 1, y    , z + 1,
-        x + 1, y + 1, z + 1,
-        x    , y + 1, z + 1,
-        x    , y    , z + 1,
-        uv, startIndex
+      case SOUTH -> quad(f, t,
+        x + sx, y     , z + sz,
+        x + sx, y + sy, z + sz,
+        x     , y + sy, z + sz,
+        x     , y     , z + sz
       );
-      case EAST -> quad(
-        x + 1, y    , z,
-        x + 1, y + 1, z,
-        x + 1, y + 1, z + 1,
-        x + 1, y    , z + 1,
-        uv, startIndex
+      case EAST -> quad(f, t,
+        x + sx, y     , z,
+        x + sx, y + sy, z,
+        x + sx, y + sy, z + sz,
+        x + sx, y     , z + sz
       );
-      case WEST -> quad(
-        x    , y    , z + 1,
-        x    , y + 1, z + 1,
-        x    , y + 1, z,
-        x    , y    , z,
-        uv, startIndex
+      case WEST -> quad(f, t,
+        x     , y     , z + sz,
+        x     , y + sy, z + sz,
+        x     , y + sy, z,
+        x     , y     , z
       );
-      case UP -> quad(
-        x    , y + 1, z,
-        x    , y + 1, z + 1,
-        x + 1, y + 1, z + 1,
-        x + 1, y + 1, z,
-        uv, startIndex
+      case UP -> quad(f, t,
+        x     , y + sy, z,
+        x     , y + sy, z + sz,
+        x + sx, y + sy, z + sz,
+        x + sx, y + sy, z
       );
-      case DOWN -> quad(
-        x + 1, y, z,
-        x + 1, y, z + 1,
-        x    , y, z + 1,
-        x    , y, z,
-        uv, startIndex
+      case DOWN -> quad(f, t,
+        x + sx, y, z,
+        x + sx, y, z + sz,
+        x     , y, z + sz,
+        x     , y, z
       );
     }
   }
 
   private void quad(
-    float x0, float y0, float z0,
-    float x1, float y1, float z1,
-    float x2, float y2, float z2,
-    float x3, float y3, float z3,
-    TextureAtlas.UVRect uv,
-    int baseIndex
+    int face, int tile,
+    int x0, int y0, int z0,
+    int x1, int y1, int z1,
+    int x2, int y2, int z2,
+    int x3, int y3, int z3
   ) {
-    putVertex(x0, y0, z0, uv.u0, uv.v0);
-    putVertex(x1, y1, z1, uv.u1, uv.v0);
-    putVertex(x2, y2, z2, uv.u1, uv.v1);
-    putVertex(x3, y3, z3, uv.u0, uv.v1);
-
-    inds.add(baseIndex + 0);
-    inds.add(baseIndex + 1);
-    inds.add(baseIndex + 2);
-
-    inds.add(baseIndex + 2);
-    inds.add(baseIndex + 3);
-    inds.add(baseIndex + 0);
-  }
-
-  private void putVertex(float x, float y, float z, float u, float v) {
-    verts.add(x);
-    verts.add(y);
-    verts.add(z);
-    verts.add(u);
-    verts.add(v);
+    out.vertex(ChunkVertex.packPosition(x0, y0, z0, face, 0), tile);
+    out.vertex(ChunkVertex.packPosition(x1, y1, z1, face, 1), tile);
+    out.vertex(ChunkVertex.packPosition(x2, y2, z2, face, 2), tile);
+    out.vertex(ChunkVertex.packPosition(x3, y3, z3, face, 3), tile);
   }
 }
@@ -1,7 +1,5 @@
 package com.jless.voxelGame.world;
 
-import java.util.Objects;
-
 public class ChunkPos {
 
   public final int cx;
@@ -12,6 +10,32 @@ public class ChunkPos {
     this.cz = cz;
   }
 
+  public static long pack(int cx, int cz) {
+    return ((long)cx << 32) | (cz & 0xFFFFFFFFL);
+  }
+
+  public static int unpackX(long key) {
+    return (int)(key >> 32);
+  }
+
+  public static int unpackZ(long key) {
+    return (int)key;
+  }
+
+  // Murmur3 finalizer; spreads neighbouring coordinates across the table.
+  public static int hash(long key) {
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    key ^= key >>> 33;
+    return (int)key;
+  }
+
+  public long key() {
+    return pack(cx, cz);
+  }
+
   @Override
   public boolean equals(Object o) {
     if(this == o) return true;
@@ -22,7 +46,7 @@ public class ChunkPos {
 
   @Override
   public int hashCode() {
-    return Objects.hash(cx, cz);
+    return hash(pack(cx, cz));
   }
 
   @Override
@@ -0,0 +1,156 @@
+package com.jless.voxelGame.world;
+
+import com.jless.voxelGame.Consts;
+
+// A 16x16x16 slice of a chunk column. Chunks only allocate sections that contain
+// at least one non-air block; the counts let scans skip empty or solid sections.
+// Storage is column-major: the 16 blocks of one column are adjacent, so vertical
+// runs fill as one contiguous range.
+public class ChunkSection {
+
+  public static final int VOLUME = Consts.CHUNK_X * Consts.SECTION_SIZE * Consts.CHUNK_Z;
+
+  private final PalettedStorage blocks;
+  private int nonAir;
+  private int solid;
+
+  public ChunkSection() {
+    blocks = new PalettedStorage(VOLUME, BlockID.AIR);
+  }
+
+  ChunkSection(PalettedStorage blocks, int nonAir, int solid) {
+    this.blocks = blocks;
+    this.nonAir = nonAir;
+    this.solid = solid;
+  }
+
+  static int index(int x, int ly, int z) {
+    return ly + Consts.SECTION_SIZE * (x + Consts.CHUNK_X * z);
+  }
+
+  public byte get(int x, int ly, int z) {
+    return blocks.get(index(x, ly, z));
+  }
+
+  // Returns the previous id.
+  public byte set(int x, int ly, int z, byte id) {
+    int idx = index(x, ly, z);
+    byte old = blocks.get(idx);
+    if(old == id) return old;
+
+    blocks.set(idx, id);
+
+    if(old == BlockID.AIR) nonAir++;
+    else if(id == BlockID.AIR) nonAir--;
+
+    if(Blocks.isSolid(old)) solid--;
+    if(Blocks.isSolid(id)) solid++;
+    return old;
+  }
+
+  // Sets ly in [lyFrom, lyTo) of column (x, z) to id. Returns the number of blocks changed.
+  public int fillColumn(int x, int z, int lyFrom, int lyTo, byte id) {
+    return fill(index(x, lyFrom, z), index(x, lyTo - 1, z) + 1, id);
+  }
+
+  // Copies the 16 blocks of column (x, z), bottom up, into dst at off.
+  public void copyColumn(int x, int z, byte[] dst, int off) {
+    blocks.copyTo(index(x, 0, z), Consts.SECTION_SIZE, dst, off);
+  }
+
+  // Replaces from with to in columns [x0, x1) x [z0, z1), ly in [lyFrom, lyTo).
+  // Returns the number of blocks changed.
+  int replace(int x0, int z0, int x1, int z1, int lyFrom, int lyTo, byte from, byte to) {
+    int n = 0;
+    if(blocks.isUniform()) {
+      if(blocks.get(0) != from) return 0;
+      for(int z = z0; z < z1; z++) {
+        for(int x = x0; x < x1; x++) n += fillColumn(x, z, lyFrom, lyTo, to);
+      }
+      return n;
+    }
+
+    for(int z = z0; z < z1; z++) {
+      for(int x = x0; x < x1; x++) {
+        for(int ly = lyFrom; ly < lyTo; ly++) {
+          if(get(x, ly, z) != from) continue;
+          set(x, ly, z, to);
+          n++;
+        }
+      }
+    }
+    return n;
+  }
+
+  // Returns the number of blocks changed.
+  public int fillAll(byte id) {
+    return fill(0, VOLUME, id);
+  }
+
+  // Leaves the storage untouched when every block in the range is already id.
+  private int fill(int from, int to, byte id) {
+    int changed = 0;
+    if(blocks.isUniform()) {
+      byte old = blocks.get(0);
+      if(old != id && from < to) {
+        count(old, from - to);
+        changed = to - from;
+      }
+    } else {
+      for(int i = from; i < to; i++) {
+        byte old = blocks.get(i);
+        if(old == id) continue;
+        count(old, -1);
+        changed++;
+      }
+    }
+    if(changed == 0) return 0;
+
+    count(id, changed);
+    blocks.fill(from, to, id);
+    return changed;
+  }
+
+  private void count(byte id, int n) {
+    if(id != BlockID.AIR) nonAir += n;
+    if(Blocks.isSolid(id)) solid += n;
+  }
+
+  public int nonAirCount() {
+    return nonAir;
+  }
+
+  public int solidCount() {
+    return solid;
+  }
+
+  public boolean isEmpty() {
+    return nonAir == 0;
+  }
+
+  public boolean isFull() {
+    return solid == VOLUME;
+  }
+
+  // False only if no block in the section can emit light.
+  public boolean mayEmitLight() {
+    int n = blocks.paletteSize();
+    if(n == 0) return true;
+    for(int p = 0; p < n; p++) {
+      if(Blocks.emission(blocks.paletteId(p)) > 0) return true;
+    }
+    return false;
+  }
+
+  public PalettedStorage storage() {
+    return blocks;
+  }
+
+  public void compact() {
+    blocks.compact();
+  }
+
+  public long memoryBytes() {
+    return 24 + blocks.memoryBytes();
+  }
+}
@@ -0,0 +1,120 @@
+package com.jless.voxelGame.world;
+
+import java.util.Arrays;
+
+import com.jless.voxelGame.Consts;
+
+// A chunk's blocks plus a one-block border from its four neighbours, copied into a
+// flat array so the mesher can run on any thread with plain indexing and no World
+// access. Laid out column-major like ChunkSection, padded by one on every side:
+// index(x, y, z) = (y + 1) + SY * ((x + 1) + SX * (z + 1)). Corner columns, the
+// rows below and above the world and borders of missing neighbours are air.
+public class ChunkSnapshot {
+
+  public static final int SX = Consts.CHUNK_X + 2;
+  public static final int SY = Consts.CHUNK_Y + 2;
+  public static final int SZ = Consts.CHUNK_Z + 2;
+
+  public static final int STRIDE_Y = 1;
+  public static final int STRIDE_X = SY;
+  public static final int STRIDE_Z = SY * SX;
+
+  private static final int SECTION_MASK = (1 << Consts.SECTIONS) - 1;
+
+  final byte[] blocks = new byte[SX * SY * SZ];
+
+  public int cx;
+  public int cz;
+  public int version;
+
+  // Per-section bitmasks, bit sy set when the section is empty / full of solid blocks.
+  int emptySections;
+  int fullSections;
+  // Sections that are full in all four neighbours; 0 if any neighbour is missing.
+  int neighbourFullSections;
+
+  public static int index(int x, int y, int z) {
+    return (y + 1) + STRIDE_X * (x + 1) + STRIDE_Z * (z + 1);
+  }
+
+  public byte get(int x, int y, int z) {
+    return blocks[index(x, y, z)];
+  }
+
+  // Safe on any thread: each chunk is copied under its read lock. The centre is
+  // consistent with version; a neighbour edited mid-capture is caught by the
+  // remesh its own edit schedules.
+  public void capture(World world, Chunk chunk) {
+    cx = chunk.cx;
+    cz = chunk.cz;
+    Arrays.fill(blocks, BlockID.AIR);
+
+    long stamp = chunk.lockRead();
+    try {
+      version = chunk.version();
+      copyCentre(chunk);
+    } finally {
+      chunk.unlockRead(stamp);
+    }
+
+    Chunk west = world.getChunk(cx - 1, cz);
+    Chunk east = world.getChunk(cx + 1, cz);
+    Chunk north = world.getChunk(cx, cz - 1);
+    Chunk south = world.getChunk(cx, cz + 1);
+
+    neighbourFullSections = SECTION_MASK
+      & copyBorder(west, Consts.CHUNK_X - 1, 0, -1, 0, 0, 1)
+      & copyBorder(east, 0, 0, Consts.CHUNK_X, 0, 0, 1)
+      & copyBorder(north, 0, Consts.CHUNK_Z - 1, 0, -1, 1, 0)
+      & copyBorder(south, 0, 0, 0, Consts.CHUNK_Z, 1, 0);
+  }
+
+  private void copyCentre(Chunk chunk) {
+    emptySections = 0;
+    fullSections = 0;
+    for(int sy = 0; sy < Consts.SECTIONS; sy++) {
+      ChunkSection s = chunk.section(sy);
+      if(s == null) {
+        emptySections |= 1 << sy;
+        continue;
+      }
+      if(s.isFull()) fullSections |= 1 << sy;
+
+      int y = sy << Consts.SECTION_SHIFT;
+      for(int z = 0; z < Consts.CHUNK_Z; z++) {
+        for(int x = 0; x < Consts.CHUNK_X; x++) s.copyColumn(x, z, blocks, index(x, y, z));
+      }
+    }
+  }
+
+  // Copies the 16 columns of a neighbour starting at (fx, fz) into padded columns
+  // starting at (tx, tz), stepping (dx, dz) along the shared edge. Returns the mask of
+  // the neighbour's full sections, read under the same lock, or 0 if it is missing.
+  private int copyBorder(Chunk from, int fx, int fz, int tx, int tz, int dx, int dz) {
+    if(from == null) return 0;
+    int full = 0;
+    long stamp = from.lockRead();
+    try {
+      for(int sy = 0; sy < Consts.SECTIONS; sy++) {
+        ChunkSection s = from.section(sy);
+        if(s == null) continue;
+        if(s.isFull()) full |= 1 << sy;
+        int y = sy << Consts.SECTION_SHIFT;
+        for(int i = 0; i < Consts.SECTION_SIZE; i++) {
+          s.copyColumn(fx + i * dx, fz + i * dz, blocks, index(tx + i * dx, y, tz + i * dz));
+        }
+      }
+    } finally {
+      from.unlockRead(stamp);
+    }
+    return full;
+  }
+
+  public boolean isSectionEmpty(int sy) {
+    return (emptySections & (1 << sy)) != 0;
+  }
+
+  public boolean isSectionFull(int sy) {
+    return (fullSections & (1 << sy)) != 0;
+  }
+}
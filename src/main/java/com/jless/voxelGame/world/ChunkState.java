@@ -0,0 +1,9 @@
+package com.jless.voxelGame.world;
+
+public enum ChunkState {
+  QUEUED,
+  GENERATING,
+  GENERATED,
+  MESHED,
+  UNLOADED
+}
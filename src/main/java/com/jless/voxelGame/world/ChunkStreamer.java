@@ -0,0 +1,167 @@
+package com.jless.voxelGame.world;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.jless.voxelGame.Consts;
+
+// Keeps every chunk within the render distance of the player loaded. Missing chunks
+// are requested nearest first, with the search centred ahead of the player along its
+// velocity so fast flight fills in what the camera is heading towards. Only a few
+// requests are in flight at once, so the order is re-evaluated every frame instead of
+// being fixed when the work was queued. Chunks past the distance plus a hysteresis
+// margin are evicted through the cache.
+public class ChunkStreamer {
+
+  private final World world;
+  private final ChunkCache cache;
+
+  private final int renderDistance;
+  private final int unloadDistance;
+  private final int maxLead;
+  private final int maxInFlight;
+
+  // (dx, dz) pairs sorted by distance from the origin, covering the render distance plus the lead.
+  private final int[] spiral;
+
+  private final List<CompletableFuture<Chunk>> inFlight = new ArrayList<>();
+  // ChunkPos.pack keys of the inFlight requests, index for index.
+  private final long[] inFlightKeys;
+  private final List<Chunk> unload = new ArrayList<>();
+
+  private boolean hasLast;
+  private float lastX;
+  private float lastZ;
+  private float velX;
+  private float velZ;
+
+  private int requested;
+  private int unloaded;
+
+  public ChunkStreamer(World world, ChunkCache cache, int renderDistance) {
+    this(world, cache, renderDistance, Consts.STREAM_HYSTERESIS, Consts.STREAM_MAX_IN_FLIGHT);
+  }
+
+  public ChunkStreamer(World world, ChunkCache cache, int renderDistance, int hysteresis, int maxInFlight) {
+    this.world = world;
+    this.cache = cache;
+    this.renderDistance = renderDistance;
+    this.unloadDistance = renderDistance + hysteresis;
+    this.maxLead = Math.max(1, renderDistance / 2);
+    this.maxInFlight = maxInFlight;
+    this.inFlightKeys = new long[maxInFlight];
+    this.spiral = spiral(renderDistance + maxLead);
+  }
+
+  static int[] spiral(int radius) {
+    List<int[]> offsets = new ArrayList<>();
+    for(int dx = -radius; dx <= radius; dx++) {
+      for(int dz = -radius; dz <= radius; dz++) {
+        if(dx * dx + dz * dz <= radius * radius) offsets.add(new int[] { dx, dz });
+      }
+    }
+    offsets.sort(Comparator
+      .comparingInt((int[] o) -> o[0] * o[0] + o[1] * o[1])
+      .thenComparingDouble(o -> Math.atan2(o[1], o[0])));
+
+    int[] out = new int[offsets.size() * 2];
+    for(int i = 0; i < offsets.size(); i++) {
+      out[i * 2] = offsets.get(i)[0];
+      out[i * 2 + 1] = offsets.get(i)[1];
+    }
+    return out;
+  }
+
+  // Call once per frame from the main thread with the player's world position.
+  public void update(float px, float pz, float dt) {
+    trackVelocity(px, pz, dt);
+
+    int pcx = Math.floorDiv((int)Math.floor(px), Consts.CHUNK_X);
+    int pcz = Math.floorDiv((int)Math.floor(pz), Consts.CHUNK_Z);
+
+    collectFinished();
+    unloadFar(pcx, pcz);
+    requestMissing(pcx, pcz);
+  }
+
+  private void trackVelocity(float px, float pz, float dt) {
+    if(hasLast && dt > 0.0f) {
+      velX = (px - lastX) / dt;
+      velZ = (pz - lastZ) / dt;
+    }
+    lastX = px;
+    lastZ = pz;
+    hasLast = true;
+  }
+
+  private void collectFinished() {
+    int n = 0;
+    for(int i = 0; i < inFlight.size(); i++) {
+      CompletableFuture<Chunk> f = inFlight.get(i);
+      if(f.isDone()) continue;
+      inFlight.set(n, f);
+      inFlightKeys[n] = inFlightKeys[i];
+      n++;
+    }
+    inFlight.subList(n, inFlight.size()).clear();
+  }
+
+  private boolean isInFlight(long key) {
+    for(int i = 0; i < inFlight.size(); i++) {
+      if(inFlightKeys[i] == key) return true;
+    }
+    return false;
+  }
+
+  private void unloadFar(int pcx, int pcz) {
+    long limit = (long)unloadDistance * unloadDistance;
+    for(Chunk c : world.chunks()) {
+      long dx = c.cx - pcx;
+      long dz = c.cz - pcz;
+      if(dx * dx + dz * dz > limit) unload.add(c);
+    }
+    for(Chunk c : unload) cache.evict(c);
+    unloaded += unload.size();
+    unload.clear();
+  }
+
+  private void requestMissing(int pcx, int pcz) {
+    if(inFlight.size() >= maxInFlight) return;
+
+    float leadX = clampLead(velX * Consts.STREAM_LEAD_SECONDS / Consts.CHUNK_X);
+    float leadZ = clampLead(velZ * Consts.STREAM_LEAD_SECONDS / Consts.CHUNK_Z);
+    int ccx = pcx + Math.round(leadX);
+    int ccz = pcz + Math.round(leadZ);
+
+    int limit = renderDistance * renderDistance;
+    for(int i = 0; i < spiral.length; i += 2) {
+      int cx = ccx + spiral[i];
+      int cz = ccz + spiral[i + 1];
+
+      int dx = cx - pcx;
+      int dz = cz - pcz;
+      if(dx * dx + dz * dz > limit) continue;
+      // A finished request is in the map before its future completes, so these two
+      // checks never both miss a chunk that is loaded or on its way.
+      if(world.isChunkReady(cx, cz)) continue;
+      long key = ChunkPos.pack(cx, cz);
+      if(isInFlight(key)) continue;
+
+      inFlightKeys[inFlight.size()] = key;
+      inFlight.add(world.requestChunk(cx, cz));
+      requested++;
+      if(inFlight.size() >= maxInFlight) return;
+    }
+  }
+
+  private float clampLead(float lead) {
+    return Math.max(-maxLead, Math.min(maxLead, lead));
+  }
+
+  public int renderDistance() { return renderDistance; }
+  public int inFlight() { return inFlight.size(); }
+  public int requested() { return requested; }
+  public int unloaded() { return unloaded; }
+}
@@ -0,0 +1,61 @@
+package com.jless.voxelGame.world;
+
+import java.util.Arrays;
+
+import com.jless.voxelGame.Consts;
+
+// Buffers block edits in world coordinates and applies them together on commit().
+// World sorts the edits by chunk, so each chunk is locked and written once and
+// queued for remeshing once, however many of its blocks the batch touches.
+// Not thread-safe; build a batch on one thread.
+public class EditBatch {
+
+  private static final int INITIAL = 256;
+
+  private final World world;
+
+  int[] xs = new int[INITIAL];
+  int[] ys = new int[INITIAL];
+  int[] zs = new int[INITIAL];
+  byte[] ids = new byte[INITIAL];
+  private int size;
+
+  public EditBatch(World world) {
+    this.world = world;
+  }
+
+  // Edits outside the world's height are dropped, as setBlock would ignore them.
+  public EditBatch set(int wx, int wy, int wz, byte id) {
+    if(wy < 0 || wy >= Consts.CHUNK_Y) return this;
+    if(size == xs.length) grow();
+    xs[size] = wx;
+    ys[size] = wy;
+    zs[size] = wz;
+    ids[size] = id;
+    size++;
+    return this;
+  }
+
+  private void grow() {
+    int n = xs.length * 2;
+    xs = Arrays.copyOf(xs, n);
+    ys = Arrays.copyOf(ys, n);
+    zs = Arrays.copyOf(zs, n);
+    ids = Arrays.copyOf(ids, n);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void clear() {
+    size = 0;
+  }
+
+  // Applies and clears the batch. Returns the number of chunks that changed.
+  public int commit() {
+    int chunks = world.commit(this);
+    clear();
+    return chunks;
+  }
+}
@@ -0,0 +1,21 @@
+package com.jless.voxelGame.world;
+
+import com.jless.voxelGame.Consts;
+
+// Per-column results handed from one generation stage to the next, indexed
+// lx + lz * CHUNK_X. Each chunk gets its own instance, so stages need no locking.
+final class GenColumns {
+
+  static final int COLUMNS = Consts.CHUNK_X * Consts.CHUNK_Z;
+
+  final float[] noise = new float[COLUMNS];
+  // y of the top solid block.
+  final int[] height = new int[COLUMNS];
+  // Lowest y of the surface layer; everything below it is stone.
+  final int[] stoneTop = new int[COLUMNS];
+  int maxStoneTop;
+
+  static int index(int lx, int lz) {
+    return lx + lz * Consts.CHUNK_X;
+  }
+}
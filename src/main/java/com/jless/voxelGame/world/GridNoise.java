@@ -0,0 +1,9 @@
+package com.jless.voxelGame.world;
+
+// An alternative implementation of Perlin.fbmGrid. VectorNoise is the only one; it is
+// compiled only with -Psimd, so Perlin looks it up by name instead of linking to it.
+interface GridNoise {
+
+  void fbmGrid(Perlin p, int x0, int z0, int spacing, int w, int h, float freq,
+               int octaves, float persistence, float lacunarity, float[] out);
+}
@@ -0,0 +1,378 @@
+package com.jless.voxelGame.world;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.jless.voxelGame.Consts;
+
+// Sky and block light, flood-filled breadth first. Light drops by one per step
+// (plus the block's opacity); sky light at full strength falls straight down
+// through clear blocks without dimming.
+//
+// A fresh chunk is lit on its own by lightChunk(), on the generator thread, from
+// a private copy of its blocks. Once it is published, stitch() floods light across
+// its borders. Edits after that go through update(), which only visits cells whose
+// light actually changes: a removal pass darkens everything lit through the edited
+// cell, then an add pass refills it from the surviving boundary. Everything that
+// touches published chunks runs under this engine's lock.
+public class LightEngine {
+
+  public static final int MAX = 15;
+
+  private static final int VOLUME = Consts.CHUNK_X * Consts.CHUNK_Y * Consts.CHUNK_Z;
+  private static final int STRIDE_X = Consts.CHUNK_Y;
+  private static final int STRIDE_Z = Consts.CHUNK_Y * Consts.CHUNK_X;
+
+  // Neighbour offsets; index 1 is straight down.
+  private static final int[] DX = { 0, 0, -1, 1, 0, 0 };
+  private static final int[] DY = { 1, -1, 0, 0, 0, 0 };
+  private static final int[] DZ = { 0, 0, 0, 0, -1, 1 };
+  private static final int DOWN = 1;
+
+  // Per-thread buffers for lightChunk, which runs on every generator thread.
+  private static final class Scratch {
+    final byte[] blocks = new byte[VOLUME];
+    final byte[] sky = new byte[VOLUME];
+    final byte[] block = new byte[VOLUME];
+    final int[] fullFrom = new int[Consts.CHUNK_X * Consts.CHUNK_Z];
+    int[] queue = new int[VOLUME];
+    int tail;
+
+    void push(int i) {
+      if(tail == queue.length) queue = Arrays.copyOf(queue, tail * 2);
+      queue[tail++] = i;
+    }
+  }
+
+  private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+  // Cells packed as x (26 bits) | z (26 bits) | y (8 bits) | level (4 bits).
+  private static final class CellQueue {
+    long[] cells = new long[1024];
+    int head;
+    int tail;
+
+    void push(int x, int y, int z, int level) {
+      if(tail == cells.length) {
+        if(head > 0) {
+          System.arraycopy(cells, head, cells, 0, tail - head);
+          tail -= head;
+          head = 0;
+        }
+        if(tail == cells.length) cells = Arrays.copyOf(cells, tail * 2);
+      }
+      cells[tail++] = ((long)x << 38) | ((long)(z & 0x3FFFFFF) << 12) | (y << 4) | level;
+    }
+
+    boolean isEmpty() {
+      return head == tail;
+    }
+
+    long pop() {
+      long c = cells[head++];
+      if(head == tail) head = tail = 0;
+      return c;
+    }
+
+    static int x(long c) { return (int)(c >> 38); }
+    static int z(long c) { return (int)(c << 26 >> 38); }
+    static int y(long c) { return (int)(c >>> 4) & 0xFF; }
+    static int level(long c) { return (int)c & 15; }
+  }
+
+  private final World world;
+  private final CellQueue adds = new CellQueue();
+  private final CellQueue removals = new CellQueue();
+
+  // Last chunk looked up by the flood fills; guarded by this.
+  private Chunk cached;
+
+  public LightEngine(World world) {
+    this.world = world;
+  }
+
+  // Light entering a block with opacity op from a neighbour at level.
+  private static int attenuate(int level, int op, boolean sky, boolean down) {
+    if(sky && down && level == MAX && op == 0) return MAX;
+    return level - 1 - op;
+  }
+
+  // Lights the chunk from its own blocks only, replacing any light it had. Safe to
+  // call for different chunks on different threads while they are unpublished.
+  public void lightChunk(Chunk c) {
+    Scratch s = SCRATCH.get();
+    c.copyBlocks(s.blocks);
+    skyLocal(s);
+    blockLocal(s, c.emitterSections());
+    c.loadLight(s.sky, s.block);
+  }
+
+  private void skyLocal(Scratch s) {
+    byte[] blocks = s.blocks;
+    byte[] sky = s.sky;
+    Arrays.fill(sky, (byte)0);
+    s.tail = 0;
+
+    // Straight down each column; fullFrom is the lowest y still at full strength.
+    for(int col = 0; col < Consts.CHUNK_X * Consts.CHUNK_Z; col++) {
+      int base = col * STRIDE_X;
+      int level = MAX;
+      int full = Consts.CHUNK_Y;
+      for(int y = Consts.CHUNK_Y - 1; y >= 0; y--) {
+        int op = Blocks.opacity(blocks[base + y]);
+        if(op >= MAX) break;
+        level = attenuate(level, op, true, true);
+        if(level <= 0) break;
+        sky[base + y] = (byte)level;
+        if(level == MAX) full = y;
+        else s.push(base + y);
+      }
+      s.fullFrom[col] = full;
+    }
+
+    // Full-strength cells spread sideways only where a neighbouring column is darker.
+    for(int z = 0; z < Consts.CHUNK_Z; z++) {
+      for(int x = 0; x < Consts.CHUNK_X; x++) {
+        int col = x + Consts.CHUNK_X * z;
+        int top = s.fullFrom[col];
+        if(x > 0) top = Math.max(top, s.fullFrom[col - 1]);
+        if(x < Consts.CHUNK_X - 1) top = Math.max(top, s.fullFrom[col + 1]);
+        if(z > 0) top = Math.max(top, s.fullFrom[col - Consts.CHUNK_X]);
+        if(z < Consts.CHUNK_Z - 1) top = Math.max(top, s.fullFrom[col + Consts.CHUNK_X]);
+        for(int y = s.fullFrom[col]; y < top; y++) s.push(col * STRIDE_X + y);
+      }
+    }
+    floodLocal(s, sky, true);
+  }
+
+  private void blockLocal(Scratch s, int emitterSections) {
+    byte[] blocks = s.blocks;
+    byte[] light = s.block;
+    Arrays.fill(light, (byte)0);
+    s.tail = 0;
+    if(emitterSections == 0) return;
+
+    for(int col = 0; col < Consts.CHUNK_X * Consts.CHUNK_Z; col++) {
+      for(int sy = 0; sy < Consts.SECTIONS; sy++) {
+        if((emitterSections & 1 << sy) == 0) continue;
+        int from = col * STRIDE_X + (sy << Consts.SECTION_SHIFT);
+        for(int i = from; i < from + Consts.SECTION_SIZE; i++) {
+          int e = Blocks.emission(blocks[i]);
+          if(e == 0) continue;
+          light[i] = (byte)e;
+          s.push(i);
+        }
+      }
+    }
+    floodLocal(s, light, false);
+  }
+
+  private static void floodLocal(Scratch s, byte[] light, boolean sky) {
+    for(int head = 0; head < s.tail; head++) {
+      int i = s.queue[head];
+      int level = light[i];
+      if(level <= 1) continue;
+
+      int y = i % Consts.CHUNK_Y;
+      int x = (i / STRIDE_X) % Consts.CHUNK_X;
+      int z = i / STRIDE_Z;
+      if(y < Consts.CHUNK_Y - 1) spreadLocal(s, light, i + 1, level, sky, false);
+      if(y > 0) spreadLocal(s, light, i - 1, level, sky, true);
+      if(x > 0) spreadLocal(s, light, i - STRIDE_X, level, sky, false);
+      if(x < Consts.CHUNK_X - 1) spreadLocal(s, light, i + STRIDE_X, level, sky, false);
+      if(z > 0) spreadLocal(s, light, i - STRIDE_Z, level, sky, false);
+      if(z < Consts.CHUNK_Z - 1) spreadLocal(s, light, i + STRIDE_Z, level, sky, false);
+    }
+    s.tail = 0;
+  }
+
+  private static void spreadLocal(Scratch s, byte[] light, int j, int level, boolean sky, boolean down) {
+    int op = Blocks.opacity(s.blocks[j]);
+    if(op >= MAX) return;
+    int n = attenuate(level, op, sky, down);
+    if(n <= light[j]) return;
+    light[j] = (byte)n;
+    s.push(j);
+  }
+
+  // Floods light both ways across the borders between c and its loaded neighbours.
+  public synchronized void stitch(Chunk c) {
+    stitch(c, true);
+    stitch(c, false);
+  }
+
+  private void stitch(Chunk c, boolean sky) {
+    int bx = c.cx * Consts.CHUNK_X;
+    int bz = c.cz * Consts.CHUNK_Z;
+    for(int side = 0; side < 4; side++) {
+      int dx = side == 0 ? -1 : side == 1 ? 1 : 0;
+      int dz = side == 2 ? -1 : side == 3 ? 1 : 0;
+      Chunk n = world.getChunk(c.cx + dx, c.cz + dz);
+      if(n == null) continue;
+
+      for(int t = 0; t < Consts.CHUNK_X; t++) {
+        int ax = dx == 0 ? t : dx < 0 ? 0 : Consts.CHUNK_X - 1;
+        int az = dz == 0 ? t : dz < 0 ? 0 : Consts.CHUNK_Z - 1;
+        int nx = dx == 0 ? t : dx < 0 ? Consts.CHUNK_X - 1 : 0;
+        int nz = dz == 0 ? t : dz < 0 ? Consts.CHUNK_Z - 1 : 0;
+        for(int y = 0; y < Consts.CHUNK_Y; y++) {
+          int a = c.getLight(sky, ax, y, az);
+          int b = n.getLight(sky, nx, y, nz);
+          if(a > b + 1) adds.push(bx + ax, y, bz + az, 0);
+          else if(b > a + 1) adds.push(bx + ax + dx, y, bz + az + dz, 0);
+        }
+      }
+    }
+    flood(sky);
+  }
+
+  // Relights a set of chunks from scratch, for edits too large to update cell by
+  // cell. Light from a chunk reaches at most MAX - 1 blocks, so relighting the
+  // chunks and all eight neighbours of each, then stitching, leaves nothing stale.
+  public synchronized void relight(Collection<Chunk> chunks) {
+    Set<Chunk> region = new LinkedHashSet<>();
+    for(Chunk c : chunks) {
+      for(int dz = -1; dz <= 1; dz++) {
+        for(int dx = -1; dx <= 1; dx++) {
+          Chunk n = world.getChunk(c.cx + dx, c.cz + dz);
+          if(n != null) region.add(n);
+        }
+      }
+    }
+    for(Chunk c : region) lightChunk(c);
+    for(Chunk c : region) {
+      stitch(c, true);
+      stitch(c, false);
+    }
+  }
+
+  // Brings light up to date after the block at (wx, wy, wz) changed.
+  public synchronized void update(int wx, int wy, int wz) {
+    if(wy < 0 || wy >= Consts.CHUNK_Y) return;
+    Chunk c = chunkAt(wx, wz);
+    if(c == null) return;
+
+    int lx = Math.floorMod(wx, Consts.CHUNK_X);
+    int lz = Math.floorMod(wz, Consts.CHUNK_Z);
+    byte id = c.getLocal(lx, wy, lz);
+    int op = Blocks.opacity(id);
+    update(c, wx, wy, wz, lx, lz, id, op, true);
+    update(c, wx, wy, wz, lx, lz, id, op, false);
+  }
+
+  private void update(Chunk c, int wx, int wy, int wz, int lx, int lz, byte id, int op, boolean sky) {
+    int old = c.getLight(sky, lx, wy, lz);
+    if(old > 0) {
+      c.setLight(sky, lx, wy, lz, 0);
+      removals.push(wx, wy, wz, old);
+      darken(sky);
+    }
+
+    int own = sky ? 0 : Blocks.emission(id);
+    if(sky && wy == Consts.CHUNK_Y - 1 && op < MAX) own = Math.max(0, attenuate(MAX, op, true, true));
+    if(own > 0) {
+      c.setLight(sky, lx, wy, lz, own);
+      adds.push(wx, wy, wz, 0);
+    }
+
+    // Let the neighbours shine back in.
+    if(op < MAX) {
+      for(int d = 0; d < 6; d++) {
+        int y = wy + DY[d];
+        if(y < 0 || y >= Consts.CHUNK_Y) continue;
+        Chunk n = chunkAt(wx + DX[d], wz + DZ[d]);
+        if(n == null) continue;
+        if(n.getLight(sky, Math.floorMod(wx + DX[d], Consts.CHUNK_X), y, Math.floorMod(wz + DZ[d], Consts.CHUNK_Z)) > 1) {
+          adds.push(wx + DX[d], y, wz + DZ[d], 0);
+        }
+      }
+    }
+    flood(sky);
+  }
+
+  // Removal pass: zeroes every cell that was lit through a queued cell and queues
+  // the brighter cells around the darkened region for the add pass.
+  private void darken(boolean sky) {
+    while(!removals.isEmpty()) {
+      long cell = removals.pop();
+      int x = CellQueue.x(cell);
+      int y = CellQueue.y(cell);
+      int z = CellQueue.z(cell);
+      int old = CellQueue.level(cell);
+
+      for(int d = 0; d < 6; d++) {
+        int ny = y + DY[d];
+        if(ny < 0 || ny >= Consts.CHUNK_Y) continue;
+        int nx = x + DX[d];
+        int nz = z + DZ[d];
+        Chunk n = chunkAt(nx, nz);
+        if(n == null) continue;
+
+        int lx = Math.floorMod(nx, Consts.CHUNK_X);
+        int lz = Math.floorMod(nz, Consts.CHUNK_Z);
+        int level = n.getLight(sky, lx, ny, lz);
+        if(level == 0) continue;
+
+        if(level < old || (sky && d == DOWN && old == MAX && level == MAX)) {
+          n.setLight(sky, lx, ny, lz, 0);
+          removals.push(nx, ny, nz, level);
+          // A source in the darkened region relights itself.
+          int e = sky ? 0 : Blocks.emission(n.getLocal(lx, ny, lz));
+          if(e > 0) {
+            n.setLight(false, lx, ny, lz, e);
+            adds.push(nx, ny, nz, 0);
+          }
+        } else {
+          adds.push(nx, ny, nz, 0);
+        }
+      }
+    }
+  }
+
+  // Add pass: spreads light outward from every queued cell at its current level.
+  private void flood(boolean sky) {
+    while(!adds.isEmpty()) {
+      long cell = adds.pop();
+      int x = CellQueue.x(cell);
+      int y = CellQueue.y(cell);
+      int z = CellQueue.z(cell);
+      Chunk c = chunkAt(x, z);
+      if(c == null) continue;
+      int level = c.getLight(sky, Math.floorMod(x, Consts.CHUNK_X), y, Math.floorMod(z, Consts.CHUNK_Z));
+      if(level <= 1) continue;
+
+      for(int d = 0; d < 6; d++) {
+        int ny = y + DY[d];
+        if(ny < 0 || ny >= Consts.CHUNK_Y) continue;
+        int nx = x + DX[d];
+        int nz = z + DZ[d];
+        Chunk n = chunkAt(nx, nz);
+        if(n == null) continue;
+
+        int lx = Math.floorMod(nx, Consts.CHUNK_X);
+        int lz = Math.floorMod(nz, Consts.CHUNK_Z);
+        // The best a neighbour can get is one less, or the same straight down.
+        int current = n.getLight(sky, lx, ny, lz);
+        if(current >= (sky && d == DOWN && level == MAX ? MAX : level - 1)) continue;
+        int op = Blocks.opacity(n.getLocal(lx, ny, lz));
+        if(op >= MAX) continue;
+        int next = attenuate(level, op, sky, d == DOWN);
+        if(next <= current) continue;
+        n.setLight(sky, lx, ny, lz, next);
+        adds.push(nx, ny, nz, 0);
+      }
+    }
+  }
+
+  private Chunk chunkAt(int wx, int wz) {
+    int cx = Math.floorDiv(wx, Consts.CHUNK_X);
+    int cz = Math.floorDiv(wz, Consts.CHUNK_Z);
+    Chunk c = cached;
+    if(c != null && c.cx == cx && c.cz == cz && !c.isUnloaded()) return c;
+    c = world.getChunk(cx, cz);
+    if(c != null) cached = c;
+    return c;
+  }
+}
@@ -0,0 +1,137 @@
+package com.jless.voxelGame.world;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.jless.voxelGame.render.ChunkArena;
+import com.jless.voxelGame.render.MeshBuilder;
+
+// Meshes chunks on worker threads. Each job captures a ChunkSnapshot under the
+// chunks' read locks and meshes that copy, so edits made while a job runs only
+// make its result stale.
+public class MeshingService {
+
+  private static final class Result {
+    final Chunk chunk;
+    final int version;
+    final int ticket;
+    final MeshBuilder geometry;
+    final int minY;
+    final int maxY;
+
+    Result(Chunk chunk, int version, int ticket, MeshBuilder geometry, int minY, int maxY) {
+      this.chunk = chunk;
+      this.version = version;
+      this.ticket = ticket;
+      this.geometry = geometry;
+      this.minY = minY;
+      this.maxY = maxY;
+    }
+  }
+
+  private final World world;
+  private final ChunkArena arena;
+  private final ChunkMesher.Mode mode;
+
+  private final ExecutorService workers;
+  private final ThreadLocal<ChunkMesher> meshers;
+
+  private final ConcurrentLinkedQueue<Result> finished = new ConcurrentLinkedQueue<>();
+  private final ConcurrentLinkedQueue<MeshBuilder> builders = new ConcurrentLinkedQueue<>();
+  private final ConcurrentLinkedQueue<ChunkSnapshot> snapshots = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private int uploaded;
+  private int discarded;
+
+  public MeshingService(World world, ChunkArena arena, ChunkMesher.Mode mode, int threads) {
+    this.world = world;
+    this.arena = arena;
+    this.mode = mode;
+
+    AtomicInteger ids = new AtomicInteger();
+    workers = Executors.newFixedThreadPool(threads, r -> {
+      Thread t = new Thread(r, "chunk-mesher-" + ids.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+    meshers = ThreadLocal.withInitial(() -> new ChunkMesher(this.mode));
+  }
+
+  // Queues every chunk the world has scheduled for remeshing. Call from the main thread once per frame.
+  public int submitScheduled() {
+    return world.remeshScheduler().drain(this::submit);
+  }
+
+  public void submit(Chunk chunk) {
+    int ticket = ++chunk.meshTicket;
+    chunk.clearDirty();
+    inFlight.incrementAndGet();
+    workers.execute(() -> mesh(chunk, ticket));
+  }
+
+  private void mesh(Chunk chunk, int ticket) {
+    ChunkSnapshot snap = snapshots.poll();
+    if(snap == null) snap = new ChunkSnapshot();
+    MeshBuilder geometry = builders.poll();
+    if(geometry == null) geometry = new MeshBuilder();
+
+    try {
+      snap.capture(world, chunk);
+      int version = snap.version;
+      ChunkMesher mesher = meshers.get();
+      if(!mesher.build(snap, geometry)) {
+        builders.offer(geometry);
+        geometry = null;
+      }
+      finished.offer(new Result(chunk, version, ticket, geometry, mesher.minY(), mesher.maxY()));
+    } catch(RuntimeException e) {
+      builders.offer(geometry);
+      chunk.markDirty();
+      world.remeshScheduler().schedule(chunk);
+      System.err.println("Meshing failed for chunk " + chunk.cx + ", " + chunk.cz + ": " + e);
+    } finally {
+      snapshots.offer(snap);
+      inFlight.decrementAndGet();
+    }
+  }
+
+  // Uploads finished meshes on the GL thread until the budget runs out. At least one
+  // result is always processed so a tiny budget still makes progress. Results from
+  // an older snapshot or superseded by a later submit are dropped.
+  public int uploadFinished(long budgetNanos) {
+    long start = System.nanoTime();
+    int count = 0;
+
+    Result r;
+    while((r = finished.poll()) != null) {
+      if(r.chunk.version() != r.version || r.chunk.meshTicket != r.ticket || r.chunk.isUnloaded()) {
+        discarded++;
+      } else {
+        if(r.chunk.mesh != null) r.chunk.mesh.destroy();
+        r.chunk.mesh = r.geometry == null ? null : arena.upload(r.geometry);
+        r.chunk.meshMinY = r.minY;
+        r.chunk.meshMaxY = r.maxY;
+        r.chunk.setState(ChunkState.MESHED);
+        uploaded++;
+        count++;
+      }
+      if(r.geometry != null) builders.offer(r.geometry);
+
+      if(System.nanoTime() - start >= budgetNanos) break;
+    }
+    return count;
+  }
+
+  public int inFlight() { return inFlight.get(); }
+  public int pendingUploads() { return finished.size(); }
+  public int uploaded() { return uploaded; }
+  public int discarded() { return discarded; }
+
+  public void shutdown() {
+    workers.shutdownNow();
+    finished.clear();
+  }
+}
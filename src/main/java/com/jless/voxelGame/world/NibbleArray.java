@@ -0,0 +1,87 @@
+package com.jless.voxelGame.world;
+
+import java.util.Arrays;
+
+// 4-bit light levels for one section, two per byte, in the same column-major
+// order as ChunkSection. Like a uniform PalettedStorage it keeps a single value
+// and no array until a cell differs, so dark stone and open sky cost nothing.
+//
+// One thread writes at a time; others may read concurrently. A new array is filled
+// before it is published through the volatile field, so readers see either the old
+// level or the new one for a cell, never an unfilled array.
+public class NibbleArray {
+
+  public static final int SIZE = ChunkSection.VOLUME;
+
+  private volatile byte[] data;
+  private int uniform;
+
+  public NibbleArray(int value) {
+    uniform = value;
+  }
+
+  public int get(int i) {
+    byte[] d = data;
+    if(d == null) return uniform;
+    return (d[i >> 1] >> ((i & 1) << 2)) & 15;
+  }
+
+  public void set(int i, int value) {
+    byte[] d = data;
+    int shift = (i & 1) << 2;
+    if(d == null) {
+      if(value == uniform) return;
+      d = new byte[SIZE / 2];
+      Arrays.fill(d, (byte)(uniform | uniform << 4));
+      d[i >> 1] = (byte)((d[i >> 1] & ~(15 << shift)) | value << shift);
+      data = d;
+      return;
+    }
+    d[i >> 1] = (byte)((d[i >> 1] & ~(15 << shift)) | value << shift);
+  }
+
+  public void fill(int value) {
+    // uniform first: a reader that sees the array gone must see the new value.
+    uniform = value;
+    data = null;
+  }
+
+  // Loads the section from src, where column c's 16 values start at off + c * columnStride.
+  void load(byte[] src, int off, int columnStride) {
+    int columns = SIZE / 16;
+    int first = src[off];
+    boolean same = true;
+    for(int c = 0; c < columns && same; c++) {
+      int base = off + c * columnStride;
+      for(int ly = 0; ly < 16; ly++) {
+        if(src[base + ly] != first) {
+          same = false;
+          break;
+        }
+      }
+    }
+    if(same) {
+      fill(first);
+      return;
+    }
+
+    // Always a fresh array, so readers never see a half-loaded section.
+    byte[] d = new byte[SIZE / 2];
+    for(int c = 0; c < columns; c++) {
+      int base = off + c * columnStride;
+      for(int ly = 0; ly < 16; ly += 2) {
+        d[(c * 16 + ly) >> 1] = (byte)(src[base + ly] | src[base + ly + 1] << 4);
+      }
+    }
+    data = d;
+  }
+
+  public boolean isUniform() {
+    return data == null;
+  }
+
+  public long memoryBytes() {
+    byte[] d = data;
+    return 24 + (d == null ? 0 : 16 + d.length);
+  }
+}
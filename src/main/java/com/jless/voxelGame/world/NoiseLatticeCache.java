@@ -0,0 +1,72 @@
+package com.jless.voxelGame.world;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Small direct-mapped cache of noise values at lattice points, shared by the
+// generator threads. Neighbouring chunks meet on a row of lattice points, so
+// whichever chunk generates second reads them from here. A colliding point
+// simply replaces the old entry; values are deterministic, so racing writers
+// always store the same thing.
+public class NoiseLatticeCache {
+
+  private static final class Entry {
+    final long key;
+    final float value;
+
+    Entry(long key, float value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  private final AtomicReferenceArray<Entry> slots;
+  private final int mask;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public NoiseLatticeCache(int capacity) {
+    int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+    slots = new AtomicReferenceArray<>(size);
+    mask = size - 1;
+  }
+
+  static long key(int gx, int gz) {
+    return ((long)gx << 32) | (gz & 0xFFFFFFFFL);
+  }
+
+  private int slot(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int)(h >>> 40) & mask;
+  }
+
+  // Returns the cached value, or NaN if the point is not present.
+  public float get(int gx, int gz) {
+    long key = key(gx, gz);
+    Entry e = slots.get(slot(key));
+    if(e != null && e.key == key) {
+      hits.increment();
+      return e.value;
+    }
+    misses.increment();
+    return Float.NaN;
+  }
+
+  public void put(int gx, int gz, float value) {
+    long key = key(gx, gz);
+    slots.set(slot(key), new Entry(key, value));
+  }
+
+  public int capacity() { return slots.length(); }
+  public long hits() { return hits.sum(); }
+  public long misses() { return misses.sum(); }
+
+  @Override
+  public String toString() {
+    long h = hits();
+    long total = h + misses();
+    return "lattice cache hits=" + h + "/" + total
+      + String.format(" (%.1f%%)", total == 0 ? 0.0f : 100.0f * h / total);
+  }
+}
@@ -0,0 +1,74 @@
+package com.jless.voxelGame.world;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.jless.voxelGame.Consts;
+
+// Scatters ore veins through stone. Each chunk draws from its own Random seeded
+// by the world seed and chunk position, and veins never leave the chunk, so the
+// result is the same whatever order or thread the chunks are generated on.
+class OreVeins {
+
+  static final class Ore {
+    final byte id;
+    final int minY;
+    final int maxY;
+    final int veins;
+    final int size;
+
+    Ore(byte id, int minY, int maxY, int veins, int size) {
+      this.id = id;
+      this.minY = minY;
+      this.maxY = maxY;
+      this.veins = veins;
+      this.size = size;
+    }
+  }
+
+  static final Ore[] ORES = {
+    new Ore(BlockID.COAL_ORE, 5, 110, 16, 10),
+    new Ore(BlockID.COPPER_ORE, 16, 80, 8, 8),
+    new Ore(BlockID.IRON_ORE, 5, 64, 10, 6),
+    new Ore(BlockID.DIAMOND_ORE, 1, 16, 1, 4)
+  };
+
+  private final long seed;
+
+  OreVeins(long seed) {
+    this.seed = seed;
+  }
+
+  // Returns the number of ore blocks placed. The walks of each ore are collected
+  // first and written with one locked pass over the chunk.
+  int place(Chunk c, GenColumns cols) {
+    Random rng = new Random(seed ^ c.cx * 341873128712L ^ c.cz * 132897987541L);
+    int placed = 0;
+    int[] cells = new int[64];
+    for(Ore ore : ORES) {
+      int n = 0;
+      for(int v = 0; v < ore.veins; v++) {
+        int x = rng.nextInt(Consts.CHUNK_X);
+        int y = ore.minY + rng.nextInt(ore.maxY - ore.minY + 1);
+        int z = rng.nextInt(Consts.CHUNK_Z);
+        // Veins starting above the stone would only be wasted walks.
+        if(y >= cols.stoneTop[GenColumns.index(x, z)]) continue;
+
+        for(int step = 0; step < ore.size; step++) {
+          if(n == cells.length) cells = Arrays.copyOf(cells, n * 2);
+          cells[n++] = Chunk.packLocal(x, y, z);
+          switch(rng.nextInt(6)) {
+            case 0 -> x = Math.min(x + 1, Consts.CHUNK_X - 1);
+            case 1 -> x = Math.max(x - 1, 0);
+            case 2 -> y = Math.min(y + 1, ore.maxY);
+            case 3 -> y = Math.max(y - 1, ore.minY);
+            case 4 -> z = Math.min(z + 1, Consts.CHUNK_Z - 1);
+            default -> z = Math.max(z - 1, 0);
+          }
+        }
+      }
+      placed += c.replaceEach(cells, n, BlockID.STONE, ore.id);
+    }
+    return placed;
+  }
+}
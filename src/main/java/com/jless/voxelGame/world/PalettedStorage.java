@@ -0,0 +1,266 @@
+package com.jless.voxelGame.world;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Block ids packed at 0, 1, 2 or 4 bits per entry into a long[] through a small
+// palette, falling back to a raw byte[] once more than 16 distinct ids appear.
+// Power-of-two widths keep every entry inside a single long. A storage holding
+// one id only keeps that id and no data array at all.
+public class PalettedStorage {
+
+  private static final int MAX_PALETTE_BITS = 4;
+
+  private final int size;
+
+  private int bits;
+  private byte[] palette;
+  private int paletteSize;
+  private long[] data;
+  private byte[] direct;
+
+  public PalettedStorage(int size, byte fill) {
+    this.size = size;
+    reset(fill);
+  }
+
+  private void reset(byte fill) {
+    bits = 0;
+    palette = new byte[] { fill };
+    paletteSize = 1;
+    data = null;
+    direct = null;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int bitsPerEntry() {
+    return direct != null ? 8 : bits;
+  }
+
+  public int paletteSize() {
+    return direct != null ? 0 : paletteSize;
+  }
+
+  // Palette entry p; ids no longer in use may linger until compact().
+  public byte paletteId(int p) {
+    return palette[p];
+  }
+
+  public boolean isUniform() {
+    return direct == null && bits == 0;
+  }
+
+  public byte get(int i) {
+    if(direct != null) return direct[i];
+    if(bits == 0) return palette[0];
+
+    int bit = i * bits;
+    int p = (int)(data[bit >>> 6] >>> (bit & 63)) & ((1 << bits) - 1);
+    return palette[p];
+  }
+
+  public void set(int i, byte id) {
+    if(direct != null) {
+      direct[i] = id;
+      return;
+    }
+
+    int p = indexOf(id);
+    if(p < 0) {
+      p = add(id);
+      if(direct != null) {
+        direct[i] = id;
+        return;
+      }
+    }
+    if(bits == 0) return;
+    setPacked(i, p);
+  }
+
+  // Decodes entries [from, from + n) into dst starting at off.
+  public void copyTo(int from, int n, byte[] dst, int off) {
+    if(direct != null) {
+      System.arraycopy(direct, from, dst, off, n);
+      return;
+    }
+    if(bits == 0) {
+      Arrays.fill(dst, off, off + n, palette[0]);
+      return;
+    }
+
+    int mask = (1 << bits) - 1;
+    for(int i = 0; i < n; i++) {
+      int bit = (from + i) * bits;
+      dst[off + i] = palette[(int)(data[bit >>> 6] >>> (bit & 63)) & mask];
+    }
+  }
+
+  private void setPacked(int i, int p) {
+    int bit = i * bits;
+    int w = bit >>> 6;
+    int shift = bit & 63;
+    long mask = ((1L << bits) - 1) << shift;
+    data[w] = (data[w] & ~mask) | ((long)p << shift);
+  }
+
+  // Sets entries [from, to) to id. Filling everything collapses to a uniform
+  // storage; otherwise whole longs are written with a repeated pattern.
+  public void fill(int from, int to, byte id) {
+    if(from >= to) return;
+    if(from == 0 && to == size) {
+      reset(id);
+      return;
+    }
+
+    if(direct == null) {
+      int p = indexOf(id);
+      if(p < 0) p = add(id);
+      if(direct == null) {
+        if(bits > 0) fillPacked(from, to, p);
+        return;
+      }
+    }
+    Arrays.fill(direct, from, to, id);
+  }
+
+  private void fillPacked(int from, int to, int p) {
+    int perWord = 64 / bits;
+    long pattern = 0;
+    for(int k = 0; k < perWord; k++) pattern |= (long)p << (k * bits);
+
+    int i = from;
+    while(i < to && i % perWord != 0) setPacked(i++, p);
+    int words = (to - i) / perWord;
+    Arrays.fill(data, i / perWord, i / perWord + words, pattern);
+    i += words * perWord;
+    while(i < to) setPacked(i++, p);
+  }
+
+  private int indexOf(byte id) {
+    for(int p = 0; p < paletteSize; p++) {
+      if(palette[p] == id) return p;
+    }
+    return -1;
+  }
+
+  private int add(byte id) {
+    if(paletteSize == (1 << bits)) {
+      int newBits = bits == 0 ? 1 : bits * 2;
+      if(newBits > MAX_PALETTE_BITS) {
+        toDirect();
+        return -1;
+      }
+      repack(newBits);
+    }
+
+    if(paletteSize == palette.length) {
+      byte[] grown = new byte[1 << bits];
+      System.arraycopy(palette, 0, grown, 0, paletteSize);
+      palette = grown;
+    }
+    palette[paletteSize] = id;
+    return paletteSize++;
+  }
+
+  private void repack(int newBits) {
+    long[] packed = new long[(size * newBits + 63) >>> 6];
+    if(bits > 0) {
+      for(int i = 0; i < size; i++) {
+        int bit = i * bits;
+        long p = (data[bit >>> 6] >>> (bit & 63)) & ((1L << bits) - 1);
+        int nbit = i * newBits;
+        packed[nbit >>> 6] |= p << (nbit & 63);
+      }
+    }
+    bits = newBits;
+    data = packed;
+  }
+
+  private void toDirect() {
+    byte[] raw = new byte[size];
+    for(int i = 0; i < size; i++) raw[i] = get(i);
+    direct = raw;
+    data = null;
+    palette = null;
+    paletteSize = 0;
+    bits = 8;
+  }
+
+  // Rebuilds the storage at the narrowest width for the ids actually present.
+  // Uniform contents collapse to a single value with no data array.
+  public void compact() {
+    boolean[] seen = new boolean[256];
+    int distinct = 0;
+    byte first = get(0);
+    for(int i = 0; i < size; i++) {
+      int id = get(i) & 0xFF;
+      if(!seen[id]) {
+        seen[id] = true;
+        distinct++;
+      }
+    }
+
+    int target = distinct <= 1 ? 0 : distinct <= 2 ? 1 : distinct <= 4 ? 2 : distinct <= 16 ? 4 : 8;
+    if(target == bitsPerEntry() && (direct != null || paletteSize == distinct)) return;
+
+    byte[] raw = new byte[size];
+    for(int i = 0; i < size; i++) raw[i] = get(i);
+
+    reset(first);
+    for(int i = 0; i < size; i++) set(i, raw[i]);
+  }
+
+  // Serialised form: width byte, then either the raw ids (width 8) or the palette
+  // size and entries followed by the packed longs.
+  public void write(ByteBuffer out) {
+    if(direct != null) {
+      out.put((byte)8);
+      out.put(direct);
+      return;
+    }
+
+    out.put((byte)bits);
+    out.put((byte)(paletteSize - 1));
+    out.put(palette, 0, paletteSize);
+    if(data != null) {
+      out.asLongBuffer().put(data);
+      out.position(out.position() + data.length * Long.BYTES);
+    }
+  }
+
+  public static PalettedStorage read(int size, ByteBuffer in) {
+    PalettedStorage s = new PalettedStorage(size, BlockID.AIR);
+    int bits = in.get();
+
+    if(bits == 8) {
+      s.toDirect();
+      in.get(s.direct);
+      return s;
+    }
+
+    int n = (in.get() & 0xFF) + 1;
+    s.bits = bits;
+    s.palette = new byte[Math.max(n, 1 << bits)];
+    in.get(s.palette, 0, n);
+    s.paletteSize = n;
+
+    if(bits > 0) {
+      s.data = new long[(size * bits + 63) >>> 6];
+      in.asLongBuffer().get(s.data);
+      in.position(in.position() + s.data.length * Long.BYTES);
+    }
+    return s;
+  }
+
+  // Approximate heap footprint including array headers.
+  public long memoryBytes() {
+    long bytes = 40;
+    if(palette != null) bytes += 16 + palette.length;
+    if(data != null) bytes += 16 + data.length * 8L;
+    if(direct != null) bytes += 16 + direct.length;
+    return bytes;
+  }
+}
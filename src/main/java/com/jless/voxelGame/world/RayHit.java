@@ -0,0 +1,28 @@
+package com.jless.voxelGame.world;
+
+// Result of a raycast. Callers keep one and pass it to every cast, so picking and
+// line-of-sight checks allocate nothing.
+public class RayHit {
+
+  public boolean hit;
+  // The solid block hit.
+  public int x;
+  public int y;
+  public int z;
+  // Face the ray entered through; null if the ray started inside the block.
+  public Face face;
+  public byte id;
+  // Distance along the ray to the entry point.
+  public float distance;
+
+  // The cell in front of the hit face, where a placed block would go.
+  public int placeX() { return face == null ? x : x + face.dx; }
+  public int placeY() { return face == null ? y : y + face.dy; }
+  public int placeZ() { return face == null ? z : z + face.dz; }
+
+  void miss() {
+    hit = false;
+    face = null;
+    id = BlockID.AIR;
+  }
+}
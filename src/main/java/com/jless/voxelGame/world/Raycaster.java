@@ -0,0 +1,135 @@
+package com.jless.voxelGame.world;
+
+import java.util.stream.IntStream;
+
+import com.jless.voxelGame.Consts;
+
+// Voxel traversal after Amanatides and Woo: the ray steps from cell to cell by
+// whichever axis boundary it crosses first, so every cell it passes through is
+// visited exactly once and nothing else is. The chunk under the ray is cached and
+// local coordinates are stepped alongside world ones, so a cast does one chunk
+// lookup per chunk crossed and allocates nothing.
+// Casts keep no state between calls, so one Raycaster can serve any thread.
+public class Raycaster {
+
+  // Rays per parallel slice in castAll.
+  private static final int SLICE = 256;
+
+  private final World world;
+
+  public Raycaster(World world) {
+    this.world = world;
+  }
+
+  // Casts from (ox, oy, oz) along (dx, dy, dz), which need not be normalised, up to
+  // maxDistance blocks. Stops at the first solid block; unloaded chunks count as air.
+  public boolean cast(float ox, float oy, float oz, float dx, float dy, float dz, float maxDistance, RayHit out) {
+    out.miss();
+    float len = (float)Math.sqrt(dx * dx + dy * dy + dz * dz);
+    if(len == 0.0f) return false;
+    dx /= len;
+    dy /= len;
+    dz /= len;
+
+    int x = (int)Math.floor(ox);
+    int y = (int)Math.floor(oy);
+    int z = (int)Math.floor(oz);
+    int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+    int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+    int stepZ = dz > 0 ? 1 : dz < 0 ? -1 : 0;
+
+    // Distance to the first boundary on each axis, and between boundaries.
+    float deltaX = stepX != 0 ? Math.abs(1.0f / dx) : Float.POSITIVE_INFINITY;
+    float deltaY = stepY != 0 ? Math.abs(1.0f / dy) : Float.POSITIVE_INFINITY;
+    float deltaZ = stepZ != 0 ? Math.abs(1.0f / dz) : Float.POSITIVE_INFINITY;
+    float maxX = stepX > 0 ? (x + 1 - ox) * deltaX : stepX < 0 ? (ox - x) * deltaX : Float.POSITIVE_INFINITY;
+    float maxY = stepY > 0 ? (y + 1 - oy) * deltaY : stepY < 0 ? (oy - y) * deltaY : Float.POSITIVE_INFINITY;
+    float maxZ = stepZ > 0 ? (z + 1 - oz) * deltaZ : stepZ < 0 ? (oz - z) * deltaZ : Float.POSITIVE_INFINITY;
+
+    int cx = Math.floorDiv(x, Consts.CHUNK_X);
+    int cz = Math.floorDiv(z, Consts.CHUNK_Z);
+    int lx = x - cx * Consts.CHUNK_X;
+    int lz = z - cz * Consts.CHUNK_Z;
+    Chunk chunk = world.getChunk(cx, cz);
+
+    Face face = null;
+    float t = 0.0f;
+    while(true) {
+      if(y >= Consts.CHUNK_Y) {
+        if(stepY >= 0) return false;
+      } else if(y < 0) {
+        if(stepY <= 0) return false;
+      } else if(chunk != null) {
+        byte id = chunk.getLocal(lx, y, lz);
+        if(Blocks.isSolid(id)) {
+          out.hit = true;
+          out.x = x;
+          out.y = y;
+          out.z = z;
+          out.face = face;
+          out.id = id;
+          out.distance = t;
+          return true;
+        }
+      }
+
+      if(maxX < maxY && maxX < maxZ) {
+        t = maxX;
+        maxX += deltaX;
+        x += stepX;
+        lx += stepX;
+        face = stepX > 0 ? Face.WEST : Face.EAST;
+        if(lx < 0 || lx >= Consts.CHUNK_X) {
+          lx -= stepX * Consts.CHUNK_X;
+          cx += stepX;
+          chunk = world.getChunk(cx, cz);
+        }
+      } else if(maxY < maxZ) {
+        t = maxY;
+        maxY += deltaY;
+        y += stepY;
+        face = stepY > 0 ? Face.DOWN : Face.UP;
+      } else {
+        t = maxZ;
+        maxZ += deltaZ;
+        z += stepZ;
+        lz += stepZ;
+        face = stepZ > 0 ? Face.NORTH : Face.SOUTH;
+        if(lz < 0 || lz >= Consts.CHUNK_Z) {
+          lz -= stepZ * Consts.CHUNK_Z;
+          cz += stepZ;
+          chunk = world.getChunk(cx, cz);
+        }
+      }
+      if(t > maxDistance) return false;
+    }
+  }
+
+  // True if no solid block lies between the two points. The cell holding the end
+  // point itself is not tested, so a target standing on the ground stays visible.
+  public boolean lineOfSight(float x0, float y0, float z0, float x1, float y1, float z1, RayHit scratch) {
+    float dx = x1 - x0;
+    float dy = y1 - y0;
+    float dz = z1 - z0;
+    float dist = (float)Math.sqrt(dx * dx + dy * dy + dz * dz);
+    if(!cast(x0, y0, z0, dx, dy, dz, dist, scratch)) return true;
+    return scratch.x == (int)Math.floor(x1) && scratch.y == (int)Math.floor(y1) && scratch.z == (int)Math.floor(z1);
+  }
+
+  // Casts rays[6i .. 6i + 5] (origin, then direction) into out[i], in parallel
+  // slices on the common fork-join pool. Returns the number of hits.
+  public static int castAll(World world, float[] rays, float maxDistance, RayHit[] out) {
+    int n = out.length;
+    if(rays.length < n * 6) throw new IllegalArgumentException("need 6 floats per ray");
+    int slices = (n + SLICE - 1) / SLICE;
+    return IntStream.range(0, slices).parallel().map(s -> {
+      Raycaster caster = new Raycaster(world);
+      int hits = 0;
+      for(int i = s * SLICE; i < Math.min(n, (s + 1) * SLICE); i++) {
+        int r = i * 6;
+        if(caster.cast(rays[r], rays[r + 1], rays[r + 2], rays[r + 3], rays[r + 4], rays[r + 5], maxDistance, out[i])) hits++;
+      }
+      return hits;
+    }).sum();
+  }
+}
@@ -0,0 +1,126 @@
+package com.jless.voxelGame.world;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+// REGION_SIZE x REGION_SIZE chunks in one file. The file starts with a table of
+// (sector offset, byte length) pairs, one per chunk, followed by payloads aligned to
+// 4 KiB sectors. Reads go through a read-only mapping of the whole file that is
+// re-established when writes grow it; writes go through the channel.
+public class RegionFile implements AutoCloseable {
+
+  public static final int REGION_SHIFT = 5;
+  public static final int REGION_SIZE = 1 << REGION_SHIFT;
+  public static final int SECTOR_BYTES = 4096;
+
+  private static final int ENTRIES = REGION_SIZE * REGION_SIZE;
+  private static final int HEADER_BYTES = ENTRIES * 8;
+  private static final int HEADER_SECTORS = HEADER_BYTES / SECTOR_BYTES;
+
+  private final FileChannel channel;
+  private final int[] offsets = new int[ENTRIES];
+  private final int[] lengths = new int[ENTRIES];
+  private final BitSet used = new BitSet();
+  private final ByteBuffer entry = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+
+  private MappedByteBuffer mapped;
+
+  public RegionFile(Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+    if(channel.size() < HEADER_BYTES) {
+      channel.write(ByteBuffer.allocate(HEADER_BYTES), 0);
+    }
+    used.set(0, HEADER_SECTORS);
+
+    remap();
+    ByteBuffer header = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    for(int i = 0; i < ENTRIES; i++) {
+      offsets[i] = header.getInt(i * 8);
+      lengths[i] = header.getInt(i * 8 + 4);
+      if(offsets[i] > 0) used.set(offsets[i], offsets[i] + sectors(lengths[i]));
+    }
+  }
+
+  private static int sectors(int bytes) {
+    return (bytes + SECTOR_BYTES - 1) / SECTOR_BYTES;
+  }
+
+  static int entryIndex(int cx, int cz) {
+    return (cx & (REGION_SIZE - 1)) + (cz & (REGION_SIZE - 1)) * REGION_SIZE;
+  }
+
+  private void remap() throws IOException {
+    mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+  }
+
+  public synchronized boolean contains(int cx, int cz) {
+    return offsets[entryIndex(cx, cz)] > 0;
+  }
+
+  // Returns a read-only view of the stored payload, or null if the chunk was never written.
+  public synchronized ByteBuffer read(int cx, int cz) throws IOException {
+    int i = entryIndex(cx, cz);
+    if(offsets[i] == 0) return null;
+
+    long start = (long)offsets[i] * SECTOR_BYTES;
+    if(start + lengths[i] > mapped.capacity()) remap();
+    return mapped.slice((int)start, lengths[i]);
+  }
+
+  public synchronized void write(int cx, int cz, ByteBuffer payload) throws IOException {
+    int i = entryIndex(cx, cz);
+    int length = payload.remaining();
+    int need = sectors(length);
+
+    int old = offsets[i];
+    int oldSectors = old == 0 ? 0 : sectors(lengths[i]);
+    int offset;
+    if(old > 0 && oldSectors >= need) {
+      offset = old;
+      used.clear(old + need, old + oldSectors);
+    } else {
+      if(old > 0) used.clear(old, old + oldSectors);
+      offset = allocate(need);
+      used.set(offset, offset + need);
+    }
+
+    long pos = (long)offset * SECTOR_BYTES;
+    while(payload.hasRemaining()) {
+      pos += channel.write(payload, pos);
+    }
+
+    offsets[i] = offset;
+    lengths[i] = length;
+
+    entry.clear();
+    entry.putInt(offset).putInt(length).flip();
+    channel.write(entry, (long)i * 8);
+  }
+
+  private int allocate(int count) {
+    int start = HEADER_SECTORS;
+    while(true) {
+      start = used.nextClearBit(start);
+      int end = used.nextSetBit(start);
+      if(end < 0 || end - start >= count) return start;
+      start = end;
+    }
+  }
+
+  public synchronized void flush() throws IOException {
+    channel.force(false);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    channel.close();
+    mapped = null;
+  }
+}
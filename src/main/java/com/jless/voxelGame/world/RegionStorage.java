@@ -0,0 +1,147 @@
+package com.jless.voxelGame.world;
+
+import static org.lwjgl.util.lz4.LZ4.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.lwjgl.BufferUtils;
+
+// Loads and saves chunks as LZ4-compressed payloads in RegionFiles under one
+// directory. Safe to call from generator threads; each thread keeps its own
+// scratch buffers so encoding and compression never allocate per chunk.
+public class RegionStorage implements AutoCloseable {
+
+  private static final class Scratch {
+    final ByteBuffer raw = BufferUtils.createByteBuffer(ChunkCodec.MAX_SIZE);
+    final ByteBuffer packed = BufferUtils.createByteBuffer(4 + LZ4_compressBound(ChunkCodec.MAX_SIZE));
+  }
+
+  private final Path dir;
+  private final Map<Long, RegionFile> regions = new HashMap<>();
+  private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+  public RegionStorage(Path dir) {
+    this.dir = dir;
+    try {
+      Files.createDirectories(dir);
+    } catch(IOException e) {
+      throw new UncheckedIOException("Failed to create save directory: " + dir, e);
+    }
+  }
+
+  // Returns the region holding the chunk. When create is false and its file does not
+  // exist yet, returns null rather than creating an empty one.
+  private RegionFile region(int cx, int cz, boolean create) throws IOException {
+    int rx = cx >> RegionFile.REGION_SHIFT;
+    int rz = cz >> RegionFile.REGION_SHIFT;
+    long key = ChunkPos.pack(rx, rz);
+
+    synchronized(regions) {
+      RegionFile r = regions.get(key);
+      if(r == null) {
+        Path path = dir.resolve("r." + rx + "." + rz + ".bin");
+        if(!create && !Files.exists(path)) return null;
+        r = new RegionFile(path);
+        regions.put(key, r);
+      }
+      return r;
+    }
+  }
+
+  // Returns null if the chunk has not been saved.
+  public Chunk load(int cx, int cz) {
+    Chunk c = new Chunk(cx, cz);
+    return load(c) ? c : null;
+  }
+
+  // Fills c from disk. Returns false if it has not been saved.
+  public boolean load(Chunk c) {
+    int cx = c.cx;
+    int cz = c.cz;
+    try {
+      RegionFile region = region(cx, cz, false);
+      if(region == null) return false;
+      ByteBuffer stored = region.read(cx, cz);
+      if(stored == null) return false;
+
+      stored.order(ByteOrder.LITTLE_ENDIAN);
+      int rawLength = stored.getInt(0);
+      ByteBuffer raw = scratch.get().raw;
+      raw.clear().limit(rawLength);
+
+      int n = LZ4_decompress_safe(stored.position(4), raw);
+      if(n != rawLength) {
+        throw new IOException("Corrupt chunk " + cx + ", " + cz + ": expected " + rawLength + " bytes, got " + n);
+      }
+
+      ChunkCodec.read(c, raw);
+      c.markSaved(c.version());
+      return true;
+    } catch(IOException e) {
+      throw new UncheckedIOException("Failed to load chunk " + cx + ", " + cz, e);
+    }
+  }
+
+  public void save(Chunk c) {
+    Scratch s = scratch.get();
+
+    ByteBuffer raw = s.raw.clear();
+    int version;
+    long stamp = c.lockRead();
+    try {
+      version = c.version();
+      ChunkCodec.write(c, raw);
+    } finally {
+      c.unlockRead(stamp);
+    }
+    raw.flip();
+    int rawLength = raw.remaining();
+
+    ByteBuffer packed = s.packed.clear();
+    packed.order(ByteOrder.LITTLE_ENDIAN).putInt(0, rawLength);
+    packed.position(4);
+    int n = LZ4_compress_default(raw, packed);
+    if(n <= 0) throw new IllegalStateException("LZ4 compression failed for chunk " + c.cx + ", " + c.cz);
+    packed.position(0).limit(4 + n);
+
+    try {
+      region(c.cx, c.cz, true).write(c.cx, c.cz, packed);
+    } catch(IOException e) {
+      throw new UncheckedIOException("Failed to save chunk " + c.cx + ", " + c.cz, e);
+    }
+    c.markSaved(version);
+  }
+
+  public void flush() {
+    synchronized(regions) {
+      for(RegionFile r : regions.values()) {
+        try {
+          r.flush();
+        } catch(IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    synchronized(regions) {
+      for(RegionFile r : regions.values()) {
+        try {
+          r.close();
+        } catch(IOException e) {
+          System.err.println("Failed to close region file: " + e);
+        }
+      }
+      regions.clear();
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.jless.voxelGame.world;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+// Queue of chunks whose mesh is out of date. A chunk is queued at most once until
+// the main thread drains it, so any number of edits in a frame cost one rebuild.
+// schedule() may be called from any thread; drain() from the main thread only.
+public class RemeshScheduler {
+
+  public interface Sink {
+    void remesh(Chunk c);
+  }
+
+  private final ConcurrentLinkedQueue<Chunk> queue = new ConcurrentLinkedQueue<>();
+  private final LongAdder scheduled = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+
+  public void schedule(Chunk c) {
+    if(c.markScheduled()) {
+      queue.offer(c);
+      scheduled.increment();
+    } else {
+      coalesced.increment();
+    }
+  }
+
+  // Hands every queued chunk that is still loaded to the sink. Returns how many were handed over.
+  public int drain(Sink sink) {
+    int n = 0;
+    Chunk c;
+    while((c = queue.poll()) != null) {
+      c.clearScheduled();
+      if(c.isUnloaded() || !c.isDirty()) continue;
+      sink.remesh(c);
+      n++;
+    }
+    return n;
+  }
+
+  public int pending() { return queue.size(); }
+  public long scheduled() { return scheduled.sum(); }
+  public long coalesced() { return coalesced.sum(); }
+}
@@ -1,38 +1,234 @@
 package com.jless.voxelGame.world;
 
+import java.util.concurrent.atomic.LongAdder;
+
 import com.jless.voxelGame.Consts;
 
+// Generates a chunk in stages: height noise, surface layers, cave carving and ore
+// veins. Per-column results are kept in GenColumns so later stages reuse them.
+// Every stage depends only on the seed and the chunk position, so chunks can be
+// generated concurrently on World's generator pool in any order. Time spent in
+// each stage is accumulated for timingReport().
 public class TerrainGen {
+
+  public enum Mode {
+    EXACT,
+    LATTICE
+  }
+
+  public enum Stage {
+    HEIGHT,
+    SURFACE,
+    CAVES,
+    ORES
+  }
+
+  private static final Stage[] STAGES = Stage.values();
+
+  private static final float FREQ = 0.008f;
+  private static final int OCTAVES = 5;
+  private static final float PERSISTENCE = 0.5f;
+  private static final float LACUNARITY = 2.0f;
+  private static final float AMPLITUDE = 80.0f;
+  static final int DIRT_DEPTH = 3;
+  private static final float CAVE_THRESHOLD = 0.3f;
+
   private final Perlin perlin;
+  private final CaveCarver caves;
+  private final OreVeins ores;
+  private final NoiseLatticeCache lattice = new NoiseLatticeCache(Consts.TERRAIN_LATTICE_CACHE);
+  private final int step;
+  private final float tolerance;
+  private volatile Mode mode;
+
+  private final LongAdder cells = new LongAdder();
+  private final LongAdder refinedCells = new LongAdder();
+
+  private final LongAdder[] stageNanos = new LongAdder[STAGES.length];
+  private final LongAdder chunksGenerated = new LongAdder();
 
   public TerrainGen(long seed) {
+    this(seed, Mode.EXACT);
+  }
+
+  public TerrainGen(long seed, Mode mode) {
+    this(seed, mode, Consts.TERRAIN_LATTICE_STEP, Consts.TERRAIN_TOLERANCE);
+  }
+
+  // tolerance is the largest height error, in blocks, accepted at a cell centre.
+  public TerrainGen(long seed, Mode mode, int step, float tolerance) {
+    if(step < 2 || Consts.CHUNK_X % step != 0 || Consts.CHUNK_Z % step != 0) {
+      throw new IllegalArgumentException("lattice step " + step + " must divide the chunk size");
+    }
     perlin = new Perlin(seed);
+    caves = new CaveCarver(seed, CAVE_THRESHOLD);
+    ores = new OreVeins(seed);
+    for(int i = 0; i < STAGES.length; i++) stageNanos[i] = new LongAdder();
+    this.mode = mode;
+    this.step = step;
+    this.tolerance = tolerance;
+  }
+
+  public Mode mode() {
+    return mode;
+  }
+
+  public void setMode(Mode mode) {
+    this.mode = mode;
   }
 
   public void generateChunks(Chunk c) {
-    int baseX = c.cx * Consts.CHUNK_X;
-    int baseZ = c.cz * Consts.CHUNK_Z;
+    GenColumns cols = new GenColumns();
+
+    long t = System.nanoTime();
+    heights(c, cols);
+    t = lap(Stage.HEIGHT, t);
+    surface(c, cols);
+    t = lap(Stage.SURFACE, t);
+    caves.carve(c, cols);
+    t = lap(Stage.CAVES, t);
+    ores.place(c, cols);
+    lap(Stage.ORES, t);
+    chunksGenerated.increment();
+  }
+
+  private long lap(Stage stage, long start) {
+    long now = System.nanoTime();
+    stageNanos[stage.ordinal()].add(now - start);
+    return now;
+  }
+
+  private void heights(Chunk c, GenColumns cols) {
+    sampleNoise(c.cx * Consts.CHUNK_X, c.cz * Consts.CHUNK_Z, cols.noise);
+    int maxStoneTop = 0;
+    for(int i = 0; i < GenColumns.COLUMNS; i++) {
+      int h = height(cols.noise[i]);
+      cols.height[i] = h;
+      cols.stoneTop[i] = h - DIRT_DEPTH;
+      maxStoneTop = Math.max(maxStoneTop, h - DIRT_DEPTH);
+    }
+    cols.maxStoneTop = maxStoneTop;
+  }
+
+  // Stone up to the surface layer, then dirt and a grass top; sand on the beaches
+  // around sea level. Stone below the lowest column is one box fill, which leaves
+  // those sections uniform; the rest is a few column runs per column.
+  private void surface(Chunk c, GenColumns cols) {
+    int floor = Consts.CHUNK_Y;
+    for(int i = 0; i < GenColumns.COLUMNS; i++) floor = Math.min(floor, cols.stoneTop[i]);
+    c.fillBox(0, 0, 0, Consts.CHUNK_X, floor, Consts.CHUNK_Z, BlockID.STONE);
+
+    for(int lz = 0; lz < Consts.CHUNK_Z; lz++) {
+      for(int lx = 0; lx < Consts.CHUNK_X; lx++) {
+        int i = GenColumns.index(lx, lz);
+        int height = Math.min(cols.height[i], Consts.CHUNK_Y - 1);
+        if(height < 0) continue;
+        boolean beach = height >= Consts.SEA_LEVEL - 2 && height <= Consts.SEA_LEVEL + 1;
+
+        c.fillColumn(lx, lz, floor, cols.stoneTop[i], BlockID.STONE);
+        c.fillColumn(lx, lz, cols.stoneTop[i], height, beach ? BlockID.SAND : BlockID.DIRT);
+        c.setLocal(lx, height, lz, beach ? BlockID.SAND : BlockID.GRASS);
+      }
+    }
+  }
+
+  static int height(float noise) {
+    return Consts.SEA_LEVEL + (int)(noise * AMPLITUDE);
+  }
+
+  // Height noise for one chunk's columns, out[lx + lz * CHUNK_X].
+  public void sampleNoise(int baseX, int baseZ, float[] out) {
+    if(mode == Mode.LATTICE) {
+      sampleLattice(baseX, baseZ, out);
+    } else {
+      perlin.fbmGrid(baseX, baseZ, 1, Consts.CHUNK_X, Consts.CHUNK_Z, FREQ, OCTAVES, PERSISTENCE, LACUNARITY, out);
+    }
+  }
 
-    for(int lx = 0; lx < Consts.CHUNK_X; lx++) {
-      for(int lz = 0; lz < Consts.CHUNK_Z; lz++) {
-        int wx = baseX + lx;
-        int wz = baseZ + lz;
+  // Evaluates noise at every step-th column and interpolates bilinearly in between.
+  // Lattice points on the chunk edge are shared with the neighbour through the cache.
+  // Each cell is checked against one exact sample at its centre; cells off by more
+  // than the tolerance are sampled exactly instead.
+  private void sampleLattice(int baseX, int baseZ, float[] out) {
+    int lw = Consts.CHUNK_X / step + 1;
+    int lh = Consts.CHUNK_Z / step + 1;
+    float[] points = new float[lw * lh];
 
-        float n = perlin.fbm(wx* 0.008f, wz * 0.008f, 5, 0.5f, 2.0f);
+    float[] interior = new float[(lw - 2) * (lh - 2)];
+    perlin.fbmGrid(baseX + step, baseZ + step, step, lw - 2, lh - 2, FREQ, OCTAVES, PERSISTENCE, LACUNARITY, interior);
 
-        int height = Consts.SEA_LEVEL + (int)(n * 80.0f);
+    int gx0 = baseX / step;
+    int gz0 = baseZ / step;
+    for(int j = 0; j < lh; j++) {
+      for(int i = 0; i < lw; i++) {
+        if(i > 0 && i < lw - 1 && j > 0 && j < lh - 1) {
+          points[i + j * lw] = interior[(i - 1) + (j - 1) * (lw - 2)];
+        } else {
+          points[i + j * lw] = latticePoint(gx0 + i, gz0 + j);
+        }
+      }
+    }
 
-        for(int y = 0; y < Consts.CHUNK_Y; y++) {
-          byte id;
+    float[] exact = new float[step * step];
+    for(int cj = 0; cj < lh - 1; cj++) {
+      for(int ci = 0; ci < lw - 1; ci++) {
+        float a = points[ci + cj * lw];
+        float b = points[ci + 1 + cj * lw];
+        float c = points[ci + (cj + 1) * lw];
+        float d = points[ci + 1 + (cj + 1) * lw];
+        int x0 = ci * step;
+        int z0 = cj * step;
+        cells.increment();
 
-          if(y > height) id = BlockID.AIR;
-          else if(y == height) id = BlockID.GRASS;
-          else if(y > height - 4) id = BlockID.DIRT;
-          else id = BlockID.STONE;
+        int half = step / 2;
+        float centre = perlin.fbm((baseX + x0 + half) * FREQ, (baseZ + z0 + half) * FREQ, OCTAVES, PERSISTENCE, LACUNARITY);
+        if(Math.abs(centre - (a + b + c + d) * 0.25f) * AMPLITUDE > tolerance) {
+          perlin.fbmGrid(baseX + x0, baseZ + z0, 1, step, step, FREQ, OCTAVES, PERSISTENCE, LACUNARITY, exact);
+          for(int dz = 0; dz < step; dz++) {
+            System.arraycopy(exact, dz * step, out, x0 + (z0 + dz) * Consts.CHUNK_X, step);
+          }
+          refinedCells.increment();
+          continue;
+        }
 
-          c.setLocal(lx, y, lz, id);
+        for(int dz = 0; dz < step; dz++) {
+          float tz = (float)dz / step;
+          float left = a + (c - a) * tz;
+          float right = b + (d - b) * tz;
+          for(int dx = 0; dx < step; dx++) {
+            float tx = (float)dx / step;
+            out[x0 + dx + (z0 + dz) * Consts.CHUNK_X] = left + (right - left) * tx;
+          }
         }
       }
     }
   }
+
+  private float latticePoint(int gx, int gz) {
+    float v = lattice.get(gx, gz);
+    if(Float.isNaN(v)) {
+      v = perlin.fbm(gx * step * FREQ, gz * step * FREQ, OCTAVES, PERSISTENCE, LACUNARITY);
+      lattice.put(gx, gz, v);
+    }
+    return v;
+  }
+
+  public int latticeStep() { return step; }
+  public float tolerance() { return tolerance; }
+  public NoiseLatticeCache latticeCache() { return lattice; }
+  public long cells() { return cells.sum(); }
+  public long refinedCells() { return refinedCells.sum(); }
+  public long chunksGenerated() { return chunksGenerated.sum(); }
+  public long stageNanos(Stage stage) { return stageNanos[stage.ordinal()].sum(); }
+
+  // Mean time per chunk in each stage.
+  public String timingReport() {
+    long n = Math.max(1, chunksGenerated());
+    StringBuilder sb = new StringBuilder("gen chunks=").append(chunksGenerated());
+    for(Stage s : STAGES) {
+      sb.append(' ').append(s.name().toLowerCase())
+        .append(String.format("=%.1fus", stageNanos(s) / 1000.0 / n));
+    }
+    return sb.toString();
+  }
 }
@@ -0,0 +1,119 @@
+package com.jless.voxelGame.world;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Vector API version of Perlin.fbmGrid. Lanes run along x; everything that only
+// depends on the row (y floor, fade and permutation) is computed once per row.
+// Every lane performs the same float operations in the same order as
+// Perlin.noise, so the results are bit-identical to the scalar path. Only compiled
+// with -Psimd, and only loaded when jdk.incubator.vector is present (run with
+// --add-modules jdk.incubator.vector).
+final class VectorNoise implements GridNoise {
+
+  private static final VectorSpecies<Float> FS = FloatVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Integer> IS = IntVector.SPECIES_PREFERRED;
+
+  static boolean usable() {
+    return FS.length() == IS.length() && FS.length() > 1;
+  }
+
+  @Override
+  public void fbmGrid(Perlin p, int x0, int z0, int spacing, int w, int h, float freq,
+                      int octaves, float persistence, float lacunarity, float[] out) {
+    int[] perm = p.perm;
+    int lanes = FS.length();
+    int vw = w - w % lanes;
+
+    float[] xs = new float[w];
+    for(int i = 0; i < w; i++) xs[i] = (x0 + i * spacing) * freq;
+    int[] xIdx = new int[lanes];
+
+    for(int j = 0; j < h; j++) {
+      float y0 = (z0 + j * spacing) * freq;
+      int row = j * w;
+
+      for(int i = 0; i < vw; i += lanes) {
+        FloatVector x = FloatVector.fromArray(FS, xs, i);
+        FloatVector sum = FloatVector.zero(FS);
+        float amp = 1.0f;
+        float f = 1.0f;
+        float max = 0.0f;
+
+        for(int o = 0; o < octaves; o++) {
+          FloatVector n = noise(perm, x.mul(f), y0 * f, xIdx);
+          sum = sum.add(n.mul(amp));
+          max += amp;
+
+          amp *= persistence;
+          f *= lacunarity;
+        }
+        sum.div(max).intoArray(out, row + i);
+      }
+    }
+
+    if(vw < w) p.fbmColumns(x0, z0, spacing, vw, w, w, h, freq, octaves, persistence, lacunarity, out);
+  }
+
+  private static FloatVector noise(int[] perm, FloatVector x, float y, int[] xIdx) {
+    int yFloor = Perlin.fastFloor(y);
+    int Y = yFloor & 255;
+    float yf = y - yFloor;
+    float v = Perlin.fade(yf);
+    int pY = perm[Y];
+    int pY1 = perm[Y + 1];
+
+    FloatVector trunc = (FloatVector)x.convert(VectorOperators.F2I, 0).convert(VectorOperators.I2F, 0);
+    FloatVector floor = trunc.sub(1.0f, x.compare(VectorOperators.LT, 0.0f));
+    FloatVector xf = x.sub(floor);
+    ((IntVector)floor.convert(VectorOperators.F2I, 0)).and(255).intoArray(xIdx, 0);
+
+    FloatVector u = fade(xf);
+
+    IntVector aa = IntVector.fromArray(IS, perm, pY, xIdx, 0);
+    IntVector ab = IntVector.fromArray(IS, perm, pY1, xIdx, 0);
+    IntVector ba = IntVector.fromArray(IS, perm, pY + 1, xIdx, 0);
+    IntVector bb = IntVector.fromArray(IS, perm, pY1 + 1, xIdx, 0);
+
+    FloatVector xf1 = xf.sub(1.0f);
+    float yf1 = yf - 1;
+
+    FloatVector x1 = lerp(grad(aa, xf, yf), grad(ba, xf1, yf), u);
+    FloatVector x2 = lerp(grad(ab, xf, yf1), grad(bb, xf1, yf1), u);
+
+    return lerp(x1, x2, v);
+  }
+
+  // Branch-free form of Perlin.grad: cases 0-3 are +-x +-y, 4-5 are +-x, 6-7 are +-y.
+  // Negation is a sign-bit flip and selection happens on the raw bits, so the
+  // float results match the scalar switch exactly.
+  private static FloatVector grad(IntVector hash, FloatVector x, float y) {
+    IntVector g = hash.and(7);
+    IntVector odd = g.and(1).lanewise(VectorOperators.LSHL, 31);
+    IntVector bit2 = g.and(2).lanewise(VectorOperators.LSHL, 30);
+
+    IntVector xb = x.reinterpretAsInts();
+    IntVector yb = IntVector.broadcast(IS, Float.floatToRawIntBits(y));
+    IntVector sx = xb.lanewise(VectorOperators.XOR, odd);
+    IntVector syLow = yb.lanewise(VectorOperators.XOR, bit2);
+    IntVector syHigh = yb.lanewise(VectorOperators.XOR, odd);
+    IntVector both = sx.reinterpretAsFloats().add(syLow.reinterpretAsFloats()).reinterpretAsInts();
+
+    IntVector r = syHigh.blend(sx, g.compare(VectorOperators.LT, 6));
+    return r.blend(both, g.compare(VectorOperators.LT, 4)).reinterpretAsFloats();
+  }
+
+  private static FloatVector fade(FloatVector t) {
+    return t.mul(t).mul(t).mul(t.mul(t.mul(6.0f).sub(15.0f)).add(10.0f));
+  }
+
+  private static FloatVector lerp(FloatVector a, FloatVector b, FloatVector t) {
+    return a.add(t.mul(b.sub(a)));
+  }
+
+  private static FloatVector lerp(FloatVector a, FloatVector b, float t) {
+    return a.add(b.sub(a).mul(t));
+  }
+}
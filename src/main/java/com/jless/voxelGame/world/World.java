@@ -1,29 +1,290 @@
 package com.jless.voxelGame.world;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.jless.voxelGame.Consts;
 
 public class World {
 
-  private final Map<ChunkPos, Chunk> chunks = new HashMap<>();
-  private final TerrainGen terrain = new TerrainGen(12345L);
+  // Edits up to this many blocks update light cell by cell; larger ones relight the chunks.
+  private static final int INCREMENTAL_LIGHT_EDITS = 64;
 
+  private static final class PendingChunk {
+    final Chunk chunk;
+    final CompletableFuture<Chunk> future = new CompletableFuture<>();
+    final AtomicBoolean scheduled = new AtomicBoolean();
+
+    PendingChunk(Chunk chunk) {
+      this.chunk = chunk;
+    }
+  }
+
+  // One chunk's part of a box edit, in local coordinates. Returns the sections changed.
+  private interface BoxEdit {
+    int apply(Chunk c, int x0, int y0, int z0, int x1, int y1, int z1);
+  }
+
+  // Open-addressed map from chunk key to a dense slot number, used to group batch
+  // edits by chunk without boxing.
+  private static final class ChunkSlots {
+    private long[] keys = new long[16];
+    // slot + 1; 0 marks an empty bucket.
+    private int[] slots = new int[16];
+    private int size;
+
+    int size() {
+      return size;
+    }
+
+    // Returns the key's slot, assigning the next free one if it has none yet.
+    int slotFor(long key) {
+      int mask = keys.length - 1;
+      int i = ChunkPos.hash(key) & mask;
+      while(slots[i] != 0) {
+        if(keys[i] == key) return slots[i] - 1;
+        i = (i + 1) & mask;
+      }
+      keys[i] = key;
+      slots[i] = ++size;
+      if(size * 2 > keys.length) grow();
+      return size - 1;
+    }
+
+    private void grow() {
+      long[] oldKeys = keys;
+      int[] oldSlots = slots;
+      keys = new long[oldKeys.length * 2];
+      slots = new int[oldSlots.length * 2];
+      int mask = keys.length - 1;
+      for(int j = 0; j < oldKeys.length; j++) {
+        if(oldSlots[j] == 0) continue;
+        int i = ChunkPos.hash(oldKeys[j]) & mask;
+        while(slots[i] != 0) i = (i + 1) & mask;
+        keys[i] = oldKeys[j];
+        slots[i] = oldSlots[j];
+      }
+    }
+  }
+
+  private final ChunkMap chunks = new ChunkMap();
+  private final TerrainGen terrain = new TerrainGen(12345L, TerrainGen.Mode.LATTICE);
+
+  // Guarded by itself; also serialises moving a chunk from pending into chunks.
+  private final Map<ChunkPos, PendingChunk> pending = new HashMap<>();
+  private final ExecutorService generators;
+  private final RemeshScheduler remesh = new RemeshScheduler();
+  private final LightEngine light = new LightEngine(this);
+  private volatile RegionStorage storage;
+
+  // Lookups by getOrCreateChunk and requestChunk that found the chunk loaded, or not.
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private long accessClock;
+
+  public World() {
+    this(Consts.GEN_THREADS);
+  }
+
+  public World(int genThreads) {
+    AtomicInteger ids = new AtomicInteger();
+    generators = Executors.newFixedThreadPool(genThreads, r -> {
+      Thread t = new Thread(r, "chunk-gen-" + ids.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  // Blocks until the chunk is generated. If the chunk is still waiting in the async
+  // queue it is generated on the calling thread instead of waiting for a worker.
   public Chunk getOrCreateChunk(int cx, int cz) {
+    Chunk c = getChunk(cx, cz);
+    if(c != null) {
+      hits.increment();
+      return c;
+    }
+    misses.increment();
+
+    PendingChunk p = pendingFor(cx, cz);
+    if(p == null) return getChunk(cx, cz);
+
+    generate(p);
+    return p.future.join();
+  }
+
+  public CompletableFuture<Chunk> requestChunk(int cx, int cz) {
+    Chunk c = getChunk(cx, cz);
+    if(c != null) {
+      hits.increment();
+      return CompletableFuture.completedFuture(c);
+    }
+    misses.increment();
+
+    PendingChunk p = pendingFor(cx, cz);
+    if(p == null) return CompletableFuture.completedFuture(getChunk(cx, cz));
+
+    if(p.scheduled.compareAndSet(false, true)) {
+      generators.execute(() -> generate(p));
+    }
+    return p.future;
+  }
+
+  // Returns null if the chunk has never been requested.
+  public ChunkState chunkState(int cx, int cz) {
+    Chunk c = chunks.get(cx, cz);
+    if(c != null) return c.state();
+
+    synchronized(pending) {
+      PendingChunk p = pending.get(new ChunkPos(cx, cz));
+      return p == null ? null : p.chunk.state();
+    }
+  }
+
+  // Not an access: polling residency leaves the LRU order alone.
+  public boolean isChunkReady(int cx, int cz) {
+    Chunk c = chunks.get(cx, cz);
+    return c != null && !c.isUnloaded();
+  }
+
+  private PendingChunk pendingFor(int cx, int cz) {
     ChunkPos pos = new ChunkPos(cx, cz);
+    synchronized(pending) {
+      if(chunks.contains(cx, cz)) return null;
+      return pending.computeIfAbsent(pos, k -> new PendingChunk(new Chunk(cx, cz)));
+    }
+  }
 
-    Chunk c = chunks.get(pos);
-    if(c == null) {
-      c = new Chunk(cx, cz);
-      terrain.generateChunks(c);
-      chunks.put(pos, c);
+  private void generate(PendingChunk p) {
+    Chunk c = p.chunk;
+    if(!c.casState(ChunkState.QUEUED, ChunkState.GENERATING)) return;
+
+    ChunkPos pos = new ChunkPos(c.cx, c.cz);
+    try {
+      RegionStorage disk = storage;
+      if(disk == null || !disk.load(c)) {
+        terrain.generateChunks(c);
+        c.compact();
+      }
+      // Generated terrain can be regenerated from the seed, so only later edits need saving.
+      c.markSaved(c.version());
+      light.lightChunk(c);
+      c.setState(ChunkState.GENERATED);
+
+      synchronized(pending) {
+        chunks.put(c);
+        pending.remove(pos);
+      }
+      light.stitch(c);
+      remesh.schedule(c);
+      // Faces along the shared borders were built against air.
+      scheduleNeighbor(c.cx + 1, c.cz);
+      scheduleNeighbor(c.cx - 1, c.cz);
+      scheduleNeighbor(c.cx, c.cz + 1);
+      scheduleNeighbor(c.cx, c.cz - 1);
+      p.future.complete(c);
+    } catch(RuntimeException e) {
+      synchronized(pending) {
+        pending.remove(pos);
+      }
+      p.future.completeExceptionally(e);
     }
-    return c;
+  }
+
+  // Stamps c for the cache's least-recently-used order. The store is skipped when the
+  // stamp is already current, so hot lookups don't keep writing to the chunk.
+  private void touch(Chunk c) {
+    long clock = accessClock;
+    if(c.lastAccess != clock) c.lastAccess = clock;
   }
 
   public Chunk getChunk(int cx, int cz) {
-    return chunks.get(new ChunkPos(cx, cz));
+    Chunk c = chunks.get(cx, cz);
+    if(c == null || c.isUnloaded()) return null;
+    touch(c);
+    return c;
+  }
+
+  // Drops the chunk from the map. The caller is responsible for its mesh and for saving it first.
+  public Chunk unloadChunk(int cx, int cz) {
+    Chunk c;
+    synchronized(pending) {
+      c = chunks.remove(cx, cz);
+    }
+    if(c != null) c.setState(ChunkState.UNLOADED);
+    return c;
+  }
+
+  // Stamp given to chunks on lookup; advanced once per frame by the residency manager.
+  public void setAccessClock(long clock) {
+    accessClock = clock;
+  }
+
+  public RemeshScheduler remeshScheduler() {
+    return remesh;
+  }
+
+  // Marks a loaded chunk dirty and queues it for remeshing.
+  private void scheduleNeighbor(int cx, int cz) {
+    Chunk n = getChunk(cx, cz);
+    if(n == null) return;
+    n.markDirty();
+    remesh.schedule(n);
+  }
+
+  public long hits() { return hits.sum(); }
+  public long misses() { return misses.sum(); }
+  public TerrainGen terrain() { return terrain; }
+  public LightEngine light() { return light; }
+
+  public Iterable<Chunk> chunks() {
+    return chunks;
+  }
+
+  public int chunkCount() {
+    return chunks.size();
+  }
+
+  // Chunks missing from the chunk map are loaded from here before falling back to generation.
+  public void setStorage(RegionStorage storage) {
+    this.storage = storage;
+  }
+
+  public RegionStorage storage() {
+    return storage;
+  }
+
+  public void save(Chunk c) {
+    RegionStorage disk = storage;
+    if(disk != null && c.needsSave()) disk.save(c);
+  }
+
+  public int saveAll() {
+    RegionStorage disk = storage;
+    if(disk == null) return 0;
+
+    int saved = 0;
+    for(Chunk c : chunks) {
+      if(!c.needsSave()) continue;
+      disk.save(c);
+      saved++;
+    }
+    disk.flush();
+    return saved;
+  }
+
+  public void shutdown() {
+    generators.shutdownNow();
   }
 
   private int floorDiv(int a, int b) {
@@ -38,6 +299,18 @@ public class World {
     return m;
   }
 
+  public int getSkyLight(int wx, int wy, int wz) {
+    Chunk c = chunks.get(floorDiv(wx, Consts.CHUNK_X), floorDiv(wz, Consts.CHUNK_Z));
+    if(c == null) return wy < Consts.CHUNK_Y ? 0 : LightEngine.MAX;
+    return c.getSkyLight(floorMod(wx, Consts.CHUNK_X), wy, floorMod(wz, Consts.CHUNK_Z));
+  }
+
+  public int getBlockLight(int wx, int wy, int wz) {
+    Chunk c = chunks.get(floorDiv(wx, Consts.CHUNK_X), floorDiv(wz, Consts.CHUNK_Z));
+    if(c == null) return 0;
+    return c.getBlockLight(floorMod(wx, Consts.CHUNK_X), wy, floorMod(wz, Consts.CHUNK_Z));
+  }
+
   public byte getBlock(int wx, int wy, int wz) {
     int cx = floorDiv(wx, Consts.CHUNK_X);
     int cz = floorDiv(wz, Consts.CHUNK_Z);
@@ -45,8 +318,9 @@ public class World {
     int lx = floorMod(wx, Consts.CHUNK_X);
     int lz = floorMod(wz, Consts.CHUNK_Z);
 
-    Chunk c = getChunk(cx, cz);
+    Chunk c = chunks.get(cx, cz);
     if(c == null) return BlockID.AIR;
+    touch(c);
 
     return c.getLocal(lx, wy, lz);
   }
@@ -60,6 +334,154 @@ public class World {
 
     Chunk c = getOrCreateChunk(cx, cz) ;
 
-    c.setLocal(lx, wy, lz, id);
+    if(!c.setLocal(lx, wy, lz, id)) return;
+    light.update(wx, wy, wz);
+    remesh.schedule(c);
+
+    // A block on a border also changes the faces of the block across it.
+    if(lx == 0) scheduleNeighbor(cx - 1, cz);
+    if(lx == Consts.CHUNK_X - 1) scheduleNeighbor(cx + 1, cz);
+    if(lz == 0) scheduleNeighbor(cx, cz - 1);
+    if(lz == Consts.CHUNK_Z - 1) scheduleNeighbor(cx, cz + 1);
+  }
+
+  // Sets every block in [x0, x1) x [y0, y1) x [z0, z1), creating chunks as needed.
+  // Each affected chunk is written with bulk fills and queued for remeshing once.
+  public void fill(int x0, int y0, int z0, int x1, int y1, int z1, byte id) {
+    editBox(x0, y0, z0, x1, y1, z1,
+      (c, bx0, by0, bz0, bx1, by1, bz1) -> c.fillBox(bx0, by0, bz0, bx1, by1, bz1, id));
+  }
+
+  // Replaces every from block in the box with to.
+  public void replace(int x0, int y0, int z0, int x1, int y1, int z1, byte from, byte to) {
+    editBox(x0, y0, z0, x1, y1, z1,
+      (c, bx0, by0, bz0, bx1, by1, bz1) -> c.replaceBox(bx0, by0, bz0, bx1, by1, bz1, from, to));
+  }
+
+  private void editBox(int x0, int y0, int z0, int x1, int y1, int z1, BoxEdit edit) {
+    y0 = Math.max(y0, 0);
+    y1 = Math.min(y1, Consts.CHUNK_Y);
+    if(x0 >= x1 || y0 >= y1 || z0 >= z1) return;
+
+    Set<Chunk> dirty = new LinkedHashSet<>();
+    List<Chunk> written = new ArrayList<>();
+    for(int cx = floorDiv(x0, Consts.CHUNK_X); cx <= floorDiv(x1 - 1, Consts.CHUNK_X); cx++) {
+      for(int cz = floorDiv(z0, Consts.CHUNK_Z); cz <= floorDiv(z1 - 1, Consts.CHUNK_Z); cz++) {
+        int lx0 = x0 - cx * Consts.CHUNK_X;
+        int lz0 = z0 - cz * Consts.CHUNK_Z;
+        int lx1 = x1 - cx * Consts.CHUNK_X;
+        int lz1 = z1 - cz * Consts.CHUNK_Z;
+
+        Chunk c = getOrCreateChunk(cx, cz);
+        if(edit.apply(c, lx0, y0, lz0, lx1, y1, lz1) == 0) continue;
+        written.add(c);
+        dirty.add(c);
+
+        if(lx0 <= 0) addNeighbor(dirty, cx - 1, cz);
+        if(lx1 >= Consts.CHUNK_X) addNeighbor(dirty, cx + 1, cz);
+        if(lz0 <= 0) addNeighbor(dirty, cx, cz - 1);
+        if(lz1 >= Consts.CHUNK_Z) addNeighbor(dirty, cx, cz + 1);
+      }
+    }
+
+    if(written.isEmpty()) return;
+    if((long)(x1 - x0) * (y1 - y0) * (z1 - z0) <= INCREMENTAL_LIGHT_EDITS) {
+      for(int x = x0; x < x1; x++) {
+        for(int z = z0; z < z1; z++) {
+          for(int y = y0; y < y1; y++) light.update(x, y, z);
+        }
+      }
+    } else {
+      light.relight(written);
+    }
+    flushDirty(dirty);
+  }
+
+  // Applies a batch, grouped by chunk so each chunk is locked, written and queued
+  // for remeshing once. The grouping is a counting sort on chunk slot, which keeps
+  // edits to the same block in order, so the last one wins. Returns the number of
+  // chunks written.
+  int commit(EditBatch batch) {
+    int n = batch.size();
+    if(n == 0) return 0;
+
+    // Give each chunk a slot. Batches are usually built in runs within one chunk,
+    // so the previous edit's slot is checked before the table.
+    ChunkSlots slots = new ChunkSlots();
+    Chunk[] slotChunks = new Chunk[8];
+    int[] slotOf = new int[n];
+    int[] counts = new int[9];
+    long lastKey = 0;
+    int last = -1;
+    for(int i = 0; i < n; i++) {
+      int cx = floorDiv(batch.xs[i], Consts.CHUNK_X);
+      int cz = floorDiv(batch.zs[i], Consts.CHUNK_Z);
+      long key = ChunkPos.pack(cx, cz);
+      if(last < 0 || key != lastKey) {
+        int known = slots.size();
+        int slot = slots.slotFor(key);
+        if(slot == known) {
+          if(slot == slotChunks.length) {
+            slotChunks = Arrays.copyOf(slotChunks, slot * 2);
+            counts = Arrays.copyOf(counts, slot * 2 + 1);
+          }
+          slotChunks[slot] = getOrCreateChunk(cx, cz);
+        }
+        last = slot;
+        lastKey = key;
+      }
+      slotOf[i] = last;
+      counts[last + 1]++;
+    }
+
+    int groups = slots.size();
+    for(int g = 0; g < groups; g++) counts[g + 1] += counts[g];
+
+    // counts[g] is now where group g starts; scatter advances it to where it ends.
+    int[] positions = new int[n];
+    byte[] ids = new byte[n];
+    for(int i = 0; i < n; i++) {
+      int k = counts[slotOf[i]]++;
+      positions[k] = Chunk.packLocal(floorMod(batch.xs[i], Consts.CHUNK_X), batch.ys[i], floorMod(batch.zs[i], Consts.CHUNK_Z));
+      ids[k] = batch.ids[i];
+    }
+
+    Set<Chunk> dirty = new LinkedHashSet<>();
+    List<Chunk> written = new ArrayList<>();
+    int start = 0;
+    for(int g = 0; g < groups; g++) {
+      Chunk c = slotChunks[g];
+      int result = c.applyEdits(positions, ids, start, counts[g]);
+      if(result != 0) {
+        written.add(c);
+        dirty.add(c);
+        if((result & Chunk.EDGE_WEST) != 0) addNeighbor(dirty, c.cx - 1, c.cz);
+        if((result & Chunk.EDGE_EAST) != 0) addNeighbor(dirty, c.cx + 1, c.cz);
+        if((result & Chunk.EDGE_NORTH) != 0) addNeighbor(dirty, c.cx, c.cz - 1);
+        if((result & Chunk.EDGE_SOUTH) != 0) addNeighbor(dirty, c.cx, c.cz + 1);
+      }
+      start = counts[g];
+    }
+
+    if(n <= INCREMENTAL_LIGHT_EDITS) {
+      for(int i = 0; i < n; i++) light.update(batch.xs[i], batch.ys[i], batch.zs[i]);
+    } else if(!written.isEmpty()) {
+      light.relight(written);
+    }
+    flushDirty(dirty);
+    return written.size();
+  }
+
+  private void addNeighbor(Set<Chunk> dirty, int cx, int cz) {
+    Chunk n = getChunk(cx, cz);
+    if(n != null) dirty.add(n);
+  }
+
+  // One dirty mark and one remesh request per chunk.
+  private void flushDirty(Set<Chunk> dirty) {
+    for(Chunk c : dirty) {
+      c.markDirty();
+      remesh.schedule(c);
+    }
   }
 }
@@ -1,12 +1,15 @@
 #version 330 core
 
 in vec2 vUV;
+flat in vec2 vTile;
 
 out vec4 FragColor;
 
 uniform sampler2D uTex;
+uniform vec2 uTileSize;
 
 void main() {
-  FragColor = texture(uTex, vUV);
+  // vUV is in tile units so merged quads repeat the tile across their surface
+  FragColor = texture(uTex, vTile + fract(vUV) * uTileSize);
   // FragColor = vec4(1, 0, 1, 1);
 }
@@ -1,16 +1,37 @@
 #version 330 core
 
-layout (location = 0) in vec3 aPos;
-layout (location = 1) in vec2 aUV;
+// Packed ChunkVertex, see render/ChunkVertex.java
+layout (location = 0) in uvec2 aData;
+// Per draw: instanced attribute selected by baseInstance, or a constant attribute.
+layout (location = 1) in vec3 aOrigin;
 
 out vec2 vUV;
+flat out vec2 vTile;
 
 uniform mat4 uProj;
 uniform mat4 uView;
 uniform mat4 uModel;
+uniform vec2 uTileSize;
 
 void main() {
-  vUV = aUV;
-  gl_Position = uProj * uView * uModel * vec4(aPos, 1.0);
-  // gl_Position = vec4(aPos.xy, 0.0, 1.0);
+  vec3 pos = vec3(
+    float(aData.x & 31u),
+    float((aData.x >> 5) & 255u),
+    float((aData.x >> 13) & 31u)
+  );
+  uint face = (aData.x >> 18) & 7u;
+
+  // Tile-space UVs follow the face plane so merged quads repeat the tile.
+  // Face order matches world/Face.java: north, south, east, west, up, down.
+  switch(face) {
+    case 0u: vUV = vec2(pos.y,  pos.x); break;
+    case 1u: vUV = vec2(pos.y, -pos.x); break;
+    case 2u: vUV = vec2(pos.y,  pos.z); break;
+    case 3u: vUV = vec2(pos.y, -pos.z); break;
+    case 4u: vUV = vec2(pos.z,  pos.x); break;
+    default: vUV = vec2(pos.z, -pos.x); break;
+  }
+
+  vTile = vec2(float(aData.y & 255u), float((aData.y >> 8) & 255u)) * uTileSize;
+  gl_Position = uProj * uView * uModel * vec4(pos + aOrigin, 1.0);
 }
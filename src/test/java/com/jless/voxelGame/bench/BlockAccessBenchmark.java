@@ -0,0 +1,91 @@
+package com.jless.voxelGame.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.jless.voxelGame.Consts;
+import com.jless.voxelGame.world.BlockID;
+import com.jless.voxelGame.world.World;
+
+// World.getBlock/setBlock per block. "column" walks one chunk in x, z, y order like
+// the mesher's neighbour lookups; "random" scatters reads over a 5x5 chunk area.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockAccessBenchmark {
+
+  private static final int RADIUS = 2;
+  private static final int SAMPLES = 4096;
+  private static final int SPAN = (RADIUS * 2 + 1) * Consts.CHUNK_X;
+
+  @Param
+  public TerrainFixture fixture;
+
+  private World world;
+  private int[] randomX;
+  private int[] randomY;
+  private int[] randomZ;
+  private int cursor;
+
+  @Setup
+  public void setup() {
+    world = fixture.build(RADIUS);
+
+    Random rng = new Random(7);
+    randomX = new int[SAMPLES];
+    randomY = new int[SAMPLES];
+    randomZ = new int[SAMPLES];
+    for(int i = 0; i < SAMPLES; i++) {
+      randomX[i] = rng.nextInt(SPAN) - RADIUS * Consts.CHUNK_X;
+      randomY[i] = rng.nextInt(Consts.CHUNK_Y);
+      randomZ[i] = rng.nextInt(SPAN) - RADIUS * Consts.CHUNK_Z;
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    world.shutdown();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(Consts.CHUNK_X * Consts.CHUNK_Y * Consts.CHUNK_Z)
+  public int getBlockColumn() {
+    int solid = 0;
+    for(int x = 0; x < Consts.CHUNK_X; x++) {
+      for(int z = 0; z < Consts.CHUNK_Z; z++) {
+        for(int y = 0; y < Consts.CHUNK_Y; y++) {
+          if(world.getBlock(x, y, z) != BlockID.AIR) solid++;
+        }
+      }
+    }
+    return solid;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SAMPLES)
+  public int getBlockRandom() {
+    int solid = 0;
+    for(int i = 0; i < SAMPLES; i++) {
+      if(world.getBlock(randomX[i], randomY[i], randomZ[i]) != BlockID.AIR) solid++;
+    }
+    return solid;
+  }
+
+  // Writes a moving horizontal strip, flipping between two ids so every call is a real edit.
+  @Benchmark
+  @OperationsPerInvocation(Consts.CHUNK_X * Consts.CHUNK_Z)
+  public void setBlockLayer() {
+    int y = cursor++ & (Consts.CHUNK_Y - 1);
+    byte id = (cursor & Consts.CHUNK_Y) == 0 ? BlockID.STONE : BlockID.DIRT;
+    for(int x = 0; x < Consts.CHUNK_X; x++) {
+      for(int z = 0; z < Consts.CHUNK_Z; z++) {
+        world.setBlock(x, y, z, id);
+      }
+    }
+  }
+}
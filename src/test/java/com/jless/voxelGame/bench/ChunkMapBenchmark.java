@@ -0,0 +1,124 @@
+package com.jless.voxelGame.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.jless.voxelGame.world.Chunk;
+import com.jless.voxelGame.world.ChunkMap;
+import com.jless.voxelGame.world.ChunkPos;
+
+// Lookup cost of ChunkMap against the HashMap<ChunkPos, Chunk> World used before.
+// "random" probes scattered chunks, "coherent" stays in one chunk the way the mesher
+// and per-column edits do.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkMapBenchmark {
+
+  // ChunkPos as it was: Objects.hash boxes both coordinates on every lookup.
+  static final class LegacyPos {
+    final int cx, cz;
+
+    LegacyPos(int cx, int cz) {
+      this.cx = cx;
+      this.cz = cz;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if(this == o) return true;
+      if(!(o instanceof LegacyPos)) return false;
+      LegacyPos other = (LegacyPos)o;
+      return cx == other.cx && cz == other.cz;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(cx, cz);
+    }
+  }
+
+  private static final int LOOKUPS = 1024;
+
+  @Param({ "8", "24" })
+  public int radius;
+
+  private Map<LegacyPos, Chunk> legacy;
+  private Map<ChunkPos, Chunk> hashMap;
+  private ChunkMap chunkMap;
+
+  private int[] xs;
+  private int[] zs;
+
+  @Setup
+  public void setup() {
+    legacy = new HashMap<>();
+    hashMap = new HashMap<>();
+    chunkMap = new ChunkMap();
+
+    for(int x = -radius; x <= radius; x++) {
+      for(int z = -radius; z <= radius; z++) {
+        Chunk c = new Chunk(x, z);
+        legacy.put(new LegacyPos(x, z), c);
+        hashMap.put(new ChunkPos(x, z), c);
+        chunkMap.put(c);
+      }
+    }
+
+    Random rng = new Random(42);
+    xs = new int[LOOKUPS];
+    zs = new int[LOOKUPS];
+    for(int i = 0; i < LOOKUPS; i++) {
+      xs[i] = rng.nextInt(radius * 2 + 1) - radius;
+      zs[i] = rng.nextInt(radius * 2 + 1) - radius;
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public int legacyHashMapRandom() {
+    int sum = 0;
+    for(int i = 0; i < LOOKUPS; i++) sum += legacy.get(new LegacyPos(xs[i], zs[i])).cx;
+    return sum;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public int hashMapRandom() {
+    int sum = 0;
+    for(int i = 0; i < LOOKUPS; i++) sum += hashMap.get(new ChunkPos(xs[i], zs[i])).cx;
+    return sum;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public int chunkMapRandom() {
+    int sum = 0;
+    for(int i = 0; i < LOOKUPS; i++) sum += chunkMap.get(xs[i], zs[i]).cx;
+    return sum;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public int legacyHashMapCoherent() {
+    int sum = 0;
+    for(int i = 0; i < LOOKUPS; i++) sum += legacy.get(new LegacyPos(xs[i >> 8], zs[i >> 8])).cx;
+    return sum;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public int chunkMapCoherent() {
+    int sum = 0;
+    for(int i = 0; i < LOOKUPS; i++) sum += chunkMap.get(xs[i >> 8], zs[i >> 8]).cx;
+    return sum;
+  }
+}
@@ -0,0 +1,65 @@
+package com.jless.voxelGame.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.jless.voxelGame.Consts;
+import com.jless.voxelGame.world.BlockID;
+import com.jless.voxelGame.world.World;
+
+// Throughput of World.getBlock under contention. "reads" is read-only and scales
+// with -t; "mixed" pairs three readers with one writer editing the same chunks,
+// so optimistic reads have to fall back to the read lock some of the time.
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentBlockAccessBenchmark {
+
+  private static final int RADIUS = 1;
+  private static final int SPAN = (RADIUS * 2 + 1) * Consts.CHUNK_X;
+
+  private World world;
+
+  @Setup
+  public void setup() {
+    world = TerrainFixture.NOISY.build(RADIUS);
+  }
+
+  @TearDown
+  public void tearDown() {
+    world.shutdown();
+  }
+
+  private byte read() {
+    ThreadLocalRandom rng = ThreadLocalRandom.current();
+    return world.getBlock(rng.nextInt(SPAN) - RADIUS * Consts.CHUNK_X, rng.nextInt(Consts.CHUNK_Y),
+      rng.nextInt(SPAN) - RADIUS * Consts.CHUNK_Z);
+  }
+
+  @Benchmark
+  @Group("reads")
+  public byte readOnly() {
+    return read();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  public byte mixedRead() {
+    return read();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  public void mixedWrite() {
+    ThreadLocalRandom rng = ThreadLocalRandom.current();
+    world.setBlock(rng.nextInt(SPAN) - RADIUS * Consts.CHUNK_X, rng.nextInt(Consts.CHUNK_Y),
+      rng.nextInt(SPAN) - RADIUS * Consts.CHUNK_Z, rng.nextBoolean() ? BlockID.STONE : BlockID.AIR);
+  }
+}
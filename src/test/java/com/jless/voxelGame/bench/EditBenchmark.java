@@ -0,0 +1,76 @@
+package com.jless.voxelGame.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.jless.voxelGame.world.BlockID;
+import com.jless.voxelGame.world.EditBatch;
+import com.jless.voxelGame.world.World;
+
+// Editing a 48x32x48 box that straddles nine chunks: per-block setBlock, one
+// World.fill, and the same blocks through an EditBatch. Every call flips the box
+// between two ids so each write is a real change. Scores are per block.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EditBenchmark {
+
+  private static final int X0 = -24;
+  private static final int Y0 = 48;
+  private static final int Z0 = -24;
+  private static final int SIZE_XZ = 48;
+  private static final int SIZE_Y = 32;
+  private static final int BLOCKS = SIZE_XZ * SIZE_Y * SIZE_XZ;
+
+  private World world;
+  private EditBatch batch;
+  private int calls;
+
+  @Setup
+  public void setup() {
+    world = TerrainFixture.NOISY.build(2);
+    batch = new EditBatch(world);
+  }
+
+  @TearDown
+  public void tearDown() {
+    world.shutdown();
+  }
+
+  private byte nextId() {
+    return (calls++ & 1) == 0 ? BlockID.STONE : BlockID.GLASS;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BLOCKS)
+  public void setBlock() {
+    byte id = nextId();
+    for(int x = X0; x < X0 + SIZE_XZ; x++) {
+      for(int z = Z0; z < Z0 + SIZE_XZ; z++) {
+        for(int y = Y0; y < Y0 + SIZE_Y; y++) world.setBlock(x, y, z, id);
+      }
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BLOCKS)
+  public void fill() {
+    world.fill(X0, Y0, Z0, X0 + SIZE_XZ, Y0 + SIZE_Y, Z0 + SIZE_XZ, nextId());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BLOCKS)
+  public int batch() {
+    byte id = nextId();
+    for(int x = X0; x < X0 + SIZE_XZ; x++) {
+      for(int z = Z0; z < Z0 + SIZE_XZ; z++) {
+        for(int y = Y0; y < Y0 + SIZE_Y; y++) batch.set(x, y, z, id);
+      }
+    }
+    return batch.commit();
+  }
+}
@@ -0,0 +1,58 @@
+package com.jless.voxelGame.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.jless.voxelGame.world.BlockID;
+import com.jless.voxelGame.world.Chunk;
+import com.jless.voxelGame.world.World;
+
+// Initial lighting of one generated chunk, and the incremental cost of single edits:
+// a furnace lit and put out, and a block set above ground and removed, which shades
+// and restores the sky column below it. Edit scores cover both halves of the toggle.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LightingBenchmark {
+
+  private World world;
+  private Chunk centre;
+  private int surface;
+
+  @Setup
+  public void setup() {
+    world = TerrainFixture.NOISY.build(2);
+    centre = world.getChunk(0, 0);
+    surface = 127;
+    while(world.getBlock(8, surface - 1, 8) == BlockID.AIR) surface--;
+  }
+
+  @TearDown
+  public void tearDown() {
+    world.shutdown();
+  }
+
+  @Benchmark
+  public Chunk lightChunk() {
+    world.light().lightChunk(centre);
+    return centre;
+  }
+
+  @Benchmark
+  public int furnaceToggle() {
+    world.setBlock(8, surface + 1, 8, BlockID.FURNACE);
+    world.setBlock(8, surface + 1, 8, BlockID.AIR);
+    return world.getBlockLight(8, surface + 2, 8);
+  }
+
+  @Benchmark
+  public int skyToggle() {
+    world.setBlock(8, surface + 6, 8, BlockID.STONE);
+    world.setBlock(8, surface + 6, 8, BlockID.AIR);
+    return world.getSkyLight(8, surface, 8);
+  }
+}
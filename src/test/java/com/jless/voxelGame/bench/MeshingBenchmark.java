@@ -0,0 +1,63 @@
+package com.jless.voxelGame.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.jless.voxelGame.world.Chunk;
+import com.jless.voxelGame.world.ChunkMesher;
+import com.jless.voxelGame.world.ChunkSnapshot;
+import com.jless.voxelGame.world.World;
+
+// CPU side of meshing the centre chunk of a 3x3 fixture; no GL upload. build()
+// includes the snapshot capture, capture() and mesh() split it into its halves.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeshingBenchmark {
+
+  @Param
+  public TerrainFixture fixture;
+
+  @Param
+  public ChunkMesher.Mode mode;
+
+  private World world;
+  private Chunk chunk;
+  private ChunkMesher mesher;
+  private final ChunkSnapshot snapshot = new ChunkSnapshot();
+
+  @Setup
+  public void setup() {
+    world = fixture.build(1);
+    chunk = world.getChunk(0, 0);
+    mesher = new ChunkMesher(mode);
+    snapshot.capture(world, chunk);
+  }
+
+  @TearDown
+  public void tearDown() {
+    world.shutdown();
+  }
+
+  @Benchmark
+  public int build() {
+    mesher.build(world, chunk);
+    return mesher.builder().vertexCount();
+  }
+
+  @Benchmark
+  public ChunkSnapshot capture() {
+    snapshot.capture(world, chunk);
+    return snapshot;
+  }
+
+  @Benchmark
+  public int mesh() {
+    mesher.build(snapshot, mesher.builder());
+    return mesher.builder().vertexCount();
+  }
+}
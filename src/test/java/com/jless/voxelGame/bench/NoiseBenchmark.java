@@ -0,0 +1,65 @@
+package com.jless.voxelGame.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.jless.voxelGame.world.Perlin;
+
+// One chunk column's worth of samples (16x16) per invocation, at the frequency TerrainGen uses.
+// fbmGrid takes the Vector API path when built with -Psimd and run with
+// -jvmArgsAppend -Dvoxel.simdNoise=true.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoiseBenchmark {
+
+  private static final float FREQ = 0.008f;
+
+  @Param({ "1", "5" })
+  public int octaves;
+
+  private Perlin perlin;
+  private int originX;
+
+  @Setup
+  public void setup() {
+    perlin = new Perlin(12345L);
+  }
+
+  @Benchmark
+  public float noise() {
+    originX += 16;
+    float sum = 0.0f;
+    for(int x = 0; x < 16; x++) {
+      for(int z = 0; z < 16; z++) {
+        sum += perlin.noise((originX + x) * FREQ, z * FREQ);
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public float fbm() {
+    originX += 16;
+    float sum = 0.0f;
+    for(int x = 0; x < 16; x++) {
+      for(int z = 0; z < 16; z++) {
+        sum += perlin.fbm((originX + x) * FREQ, z * FREQ, octaves, 0.5f, 2.0f);
+      }
+    }
+    return sum;
+  }
+
+  private final float[] grid = new float[16 * 16];
+
+  @Benchmark
+  public float[] fbmGrid() {
+    originX += 16;
+    perlin.fbmGrid(originX, 0, 1, 16, 16, FREQ, octaves, 0.5f, 2.0f, grid);
+    return grid;
+  }
+}
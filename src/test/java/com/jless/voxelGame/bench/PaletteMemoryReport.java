@@ -0,0 +1,50 @@
+package com.jless.voxelGame.bench;
+
+import com.jless.voxelGame.Consts;
+import com.jless.voxelGame.world.Chunk;
+import com.jless.voxelGame.world.ChunkSection;
+import com.jless.voxelGame.world.World;
+
+// Generates a square of terrain and prints section/palette storage size against the
+// flat byte[] each chunk used to hold. Run with: java -cp <test classpath> com.jless.voxelGame.bench.PaletteMemoryReport [radius]
+public class PaletteMemoryReport {
+
+  public static void main(String[] args) {
+    int radius = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+
+    World world = new World();
+    for(int x = -radius; x < radius; x++) {
+      for(int z = -radius; z < radius; z++) {
+        world.getOrCreateChunk(x, z);
+      }
+    }
+
+    long flatPerChunk = 16 + (long)Consts.CHUNK_X * Consts.CHUNK_Y * Consts.CHUNK_Z;
+    long flat = 0;
+    long palette = 0;
+    int[] byBits = new int[9];
+    int sections = 0;
+
+    for(Chunk c : world.chunks()) {
+      flat += flatPerChunk;
+      palette += c.memoryBytes();
+      for(int sy = 0; sy < Consts.SECTIONS; sy++) {
+        ChunkSection s = c.section(sy);
+        if(s == null) continue;
+        sections++;
+        byBits[s.storage().bitsPerEntry()]++;
+      }
+    }
+
+    int count = world.chunkCount();
+    System.out.printf("chunks: %d%n", count);
+    System.out.printf("flat byte[]: %,d bytes (%,d per chunk)%n", flat, flatPerChunk);
+    System.out.printf("palette:     %,d bytes (%,d per chunk avg)%n", palette, palette / count);
+    System.out.printf("ratio:       %.2fx smaller%n", (double)flat / palette);
+    System.out.printf("sections:    %d of %d allocated%n", sections, count * Consts.SECTIONS);
+    for(int b = 0; b < byBits.length; b++) {
+      if(byBits[b] > 0) System.out.printf("  %d bits/entry: %d sections%n", b, byBits[b]);
+    }
+    world.shutdown();
+  }
+}
@@ -0,0 +1,85 @@
+package com.jless.voxelGame.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.jless.voxelGame.Consts;
+import com.jless.voxelGame.world.RayHit;
+import com.jless.voxelGame.world.Raycaster;
+import com.jless.voxelGame.world.World;
+
+// Raycasts over NOISY terrain from random points above ground. "short" is block
+// picking reach (8 blocks), "long" is a 96-block line-of-sight check that usually
+// crosses several chunks; batch runs the long rays through castAll. Scores are per ray.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RaycastBenchmark {
+
+  private static final int RADIUS = 3;
+  private static final int RAYS = 4096;
+
+  private World world;
+  private Raycaster caster;
+  private RayHit hit;
+  private RayHit[] hits;
+  private float[] rays;
+
+  @Setup
+  public void setup() {
+    world = TerrainFixture.NOISY.build(RADIUS);
+    caster = new Raycaster(world);
+    hit = new RayHit();
+    hits = new RayHit[RAYS];
+    for(int i = 0; i < RAYS; i++) hits[i] = new RayHit();
+
+    Random rng = new Random(9);
+    rays = new float[RAYS * 6];
+    float span = Consts.CHUNK_X * 2;
+    for(int i = 0; i < RAYS; i++) {
+      int r = i * 6;
+      rays[r] = rng.nextFloat() * span - span / 2;
+      rays[r + 1] = Consts.SEA_LEVEL + 10 + rng.nextFloat() * 30;
+      rays[r + 2] = rng.nextFloat() * span - span / 2;
+      rays[r + 3] = rng.nextFloat() * 2 - 1;
+      rays[r + 4] = -rng.nextFloat() * 0.5f;
+      rays[r + 5] = rng.nextFloat() * 2 - 1;
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    world.shutdown();
+  }
+
+  private int castEach(float maxDistance) {
+    int n = 0;
+    for(int r = 0; r < rays.length; r += 6) {
+      if(caster.cast(rays[r], rays[r + 1], rays[r + 2], rays[r + 3], rays[r + 4], rays[r + 5], maxDistance, hit)) n++;
+    }
+    return n;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RAYS)
+  public int shortRays() {
+    return castEach(8);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RAYS)
+  public int longRays() {
+    return castEach(96);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RAYS)
+  public int batchLongRays() {
+    return Raycaster.castAll(world, rays, 96, hits);
+  }
+}
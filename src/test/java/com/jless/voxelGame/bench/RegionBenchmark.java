@@ -0,0 +1,85 @@
+package com.jless.voxelGame.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.jless.voxelGame.world.Chunk;
+import com.jless.voxelGame.world.RegionStorage;
+import com.jless.voxelGame.world.TerrainGen;
+
+// Cost of bringing one chunk into memory: regenerating it from TerrainGen versus
+// loading it back from a region file.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegionBenchmark {
+
+  private static final int SIDE = 16;
+
+  private Path dir;
+  private RegionStorage storage;
+  private TerrainGen terrain;
+  private int next;
+
+  @Setup
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("region-bench");
+    storage = new RegionStorage(dir);
+    terrain = new TerrainGen(12345L);
+
+    for(int x = 0; x < SIDE; x++) {
+      for(int z = 0; z < SIDE; z++) {
+        Chunk c = new Chunk(x, z);
+        terrain.generateChunks(c);
+        c.compact();
+        storage.save(c);
+      }
+    }
+    storage.flush();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    storage.close();
+    try(Stream<Path> files = Files.walk(dir)) {
+      files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+  }
+
+  private int nextIndex() {
+    next = (next + 1) & (SIDE * SIDE - 1);
+    return next;
+  }
+
+  @Benchmark
+  public Chunk generate() {
+    int i = nextIndex();
+    Chunk c = new Chunk(i % SIDE, i / SIDE);
+    terrain.generateChunks(c);
+    c.compact();
+    return c;
+  }
+
+  @Benchmark
+  public Chunk load() {
+    int i = nextIndex();
+    return storage.load(i % SIDE, i / SIDE);
+  }
+
+  @Benchmark
+  public void save() {
+    int i = nextIndex();
+    Chunk c = storage.load(i % SIDE, i / SIDE);
+    c.setLocal(0, 127, 0, (byte)1);
+    storage.save(c);
+  }
+}
@@ -0,0 +1,46 @@
+package com.jless.voxelGame.bench;
+
+import com.jless.voxelGame.Consts;
+import com.jless.voxelGame.world.BlockID;
+import com.jless.voxelGame.world.Chunk;
+import com.jless.voxelGame.world.World;
+
+// Terrain shapes the benchmarks run against. FLAT is the best case for the greedy
+// mesher and the palette, NOISY is what TerrainGen produces, and CHECKERBOARD is the
+// worst case: every solid block shows all six faces and nothing can be merged.
+public enum TerrainFixture {
+  FLAT,
+  NOISY,
+  CHECKERBOARD;
+
+  // A (2r+1)^2 square of chunks around the origin, filled with this fixture.
+  public World build(int radius) {
+    World world = new World(1);
+    for(int cx = -radius; cx <= radius; cx++) {
+      for(int cz = -radius; cz <= radius; cz++) {
+        Chunk c = world.getOrCreateChunk(cx, cz);
+        if(this != NOISY) fill(c);
+        c.compact();
+      }
+    }
+    return world;
+  }
+
+  private void fill(Chunk c) {
+    for(int x = 0; x < Consts.CHUNK_X; x++) {
+      for(int z = 0; z < Consts.CHUNK_Z; z++) {
+        for(int y = 0; y < Consts.CHUNK_Y; y++) {
+          c.setLocal(x, y, z, blockAt(x, y, z));
+        }
+      }
+    }
+  }
+
+  private byte blockAt(int x, int y, int z) {
+    if(this == FLAT) {
+      if(y < Consts.SEA_LEVEL) return BlockID.STONE;
+      return y == Consts.SEA_LEVEL ? BlockID.GRASS : BlockID.AIR;
+    }
+    return ((x + y + z) & 1) == 0 ? BlockID.STONE : BlockID.AIR;
+  }
+}
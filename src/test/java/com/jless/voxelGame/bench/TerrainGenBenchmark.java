@@ -0,0 +1,62 @@
+package com.jless.voxelGame.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.jless.voxelGame.world.Chunk;
+import com.jless.voxelGame.world.TerrainGen;
+
+// Full generation of one chunk, walking along x so every call sees new terrain.
+// In LATTICE mode each chunk reuses the border samples of the one before it.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TerrainGenBenchmark {
+
+  @Param({ "EXACT", "LATTICE" })
+  public TerrainGen.Mode mode;
+
+  private TerrainGen terrain;
+  private int next;
+
+  @Setup
+  public void setup() {
+    terrain = new TerrainGen(12345L, mode);
+  }
+
+  @TearDown
+  public void report() {
+    System.out.println(terrain.timingReport());
+    if(mode == TerrainGen.Mode.LATTICE) {
+      System.out.println(terrain.latticeCache() + " refined=" + terrain.refinedCells() + "/" + terrain.cells());
+    }
+  }
+
+  private final float[] noise = new float[16 * 16];
+
+  // Height noise alone, without filling the chunk's blocks.
+  @Benchmark
+  public float[] heights() {
+    terrain.sampleNoise(16 * next++, 0, noise);
+    return noise;
+  }
+
+  @Benchmark
+  public Chunk generate() {
+    Chunk c = new Chunk(next++, 0);
+    terrain.generateChunks(c);
+    return c;
+  }
+
+  @Benchmark
+  public Chunk generateAndCompact() {
+    Chunk c = new Chunk(next++, 0);
+    terrain.generateChunks(c);
+    c.compact();
+    return c;
+  }
+}
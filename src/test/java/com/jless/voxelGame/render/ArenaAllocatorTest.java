@@ -0,0 +1,102 @@
+package com.jless.voxelGame.render;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ArenaAllocatorTest {
+
+  @Test
+  public void freedNeighboursCoalesce() {
+    ArenaAllocator a = new ArenaAllocator(100);
+    int x = a.allocate(10);
+    int y = a.allocate(20);
+    int z = a.allocate(30);
+    assertEquals(40, a.freeUnits());
+
+    a.free(x);
+    a.free(z);
+    assertEquals(2, a.freeBlocks());
+    assertEquals(-1, a.allocate(80));
+
+    a.free(y);
+    assertEquals(1, a.freeBlocks());
+    assertEquals(100, a.largestFree());
+    assertEquals(0.0f, a.fragmentation());
+    assertEquals(0, a.allocate(100));
+  }
+
+  @Test
+  public void bestFitPicksSmallestHole() {
+    ArenaAllocator a = new ArenaAllocator(100);
+    int[] blocks = new int[5];
+    for(int i = 0; i < 5; i++) blocks[i] = a.allocate(i == 1 ? 8 : i == 3 ? 4 : 10);
+    a.free(blocks[1]);
+    a.free(blocks[3]);
+
+    assertEquals(blocks[3], a.allocate(4));
+    assertEquals(blocks[1], a.allocate(6));
+  }
+
+  @Test
+  public void compactionPacksAndReportsMoves() {
+    ArenaAllocator a = new ArenaAllocator(60);
+    int x = a.allocate(10);
+    int y = a.allocate(10);
+    int z = a.allocate(10);
+    a.free(y);
+    a.allocate(5);
+    a.free(x);
+    assertTrue(a.fragmentation() > 0.0f);
+
+    List<int[]> moves = new ArrayList<>();
+    a.compact((from, to, size) -> moves.add(new int[] { from, to, size }));
+
+    assertEquals(2, moves.size());
+    assertArrayEquals(new int[] { 10, 0, 5 }, moves.get(0));
+    assertArrayEquals(new int[] { z, 5, 10 }, moves.get(1));
+    assertEquals(1, a.freeBlocks());
+    assertEquals(45, a.largestFree());
+    assertEquals(10, a.sizeOf(5));
+  }
+
+  @Test
+  public void growExtendsTrailingFreeBlock() {
+    ArenaAllocator a = new ArenaAllocator(16);
+    a.allocate(8);
+    assertEquals(-1, a.allocate(16));
+
+    a.grow(32);
+    assertEquals(1, a.freeBlocks());
+    assertEquals(8, a.allocate(16));
+    assertEquals(8, a.freeUnits());
+  }
+
+  @Test
+  public void randomChurnKeepsAccountingConsistent() {
+    ArenaAllocator a = new ArenaAllocator(1 << 16);
+    Random rng = new Random(3);
+    List<Integer> live = new ArrayList<>();
+    int used = 0;
+
+    for(int i = 0; i < 5000; i++) {
+      if(!live.isEmpty() && rng.nextInt(3) == 0) {
+        int off = live.remove(rng.nextInt(live.size()));
+        used -= a.sizeOf(off);
+        a.free(off);
+      } else {
+        int size = 1 + rng.nextInt(512);
+        int off = a.allocate(size);
+        if(off >= 0) {
+          live.add(off);
+          used += size;
+        }
+      }
+      assertEquals(used, a.usedUnits());
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.jless.voxelGame.render;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class ChunkVertexTest {
+
+  @Test
+  public void positionRoundTripsOverWholeChunk() {
+    for(int x = 0; x <= 16; x++) {
+      for(int y = 0; y <= 128; y++) {
+        for(int z = 0; z <= 16; z += 4) {
+          int w = ChunkVertex.packPosition(x, y, z, 5, 3);
+          assertEquals(x, ChunkVertex.x(w));
+          assertEquals(y, ChunkVertex.y(w));
+          assertEquals(z, ChunkVertex.z(w));
+          assertEquals(5, ChunkVertex.face(w));
+          assertEquals(3, ChunkVertex.corner(w));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void fieldsDoNotOverlap() {
+    int w = ChunkVertex.packPosition(16, 128, 16, 0, 0);
+    assertEquals(0, ChunkVertex.face(w));
+    assertEquals(0, ChunkVertex.corner(w));
+
+    w = ChunkVertex.packPosition(0, 0, 0, 7, 3);
+    assertEquals(0, ChunkVertex.x(w));
+    assertEquals(0, ChunkVertex.y(w));
+    assertEquals(0, ChunkVertex.z(w));
+
+    int t = ChunkVertex.packTile(23, 11);
+    assertEquals(23, ChunkVertex.tileX(t));
+    assertEquals(11, ChunkVertex.tileY(t));
+  }
+}
@@ -0,0 +1,65 @@
+package com.jless.voxelGame.render;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+public class FrustumCullerTest {
+
+  private static FrustumCuller cullerFor(Vector3f pos, float yaw, float pitch) {
+    Camera camera = new Camera();
+    camera.setGluPersp(85.0f, 16.0f / 9.0f, 0.05f, 1000.0f);
+    camera.updateView(pos, yaw, pitch);
+
+    FrustumCuller culler = new FrustumCuller();
+    culler.update(camera.projection(), camera.view());
+    return culler;
+  }
+
+  @Test
+  public void keepsBoxesInFrontAndCullsBehind() {
+    // Yaw -90 looks down -z.
+    FrustumCuller culler = cullerFor(new Vector3f(0, 0, 0), -90.0f, 0.0f);
+
+    assertTrue(culler.testAab(-1, -1, -20, 1, 1, -18));
+    assertFalse(culler.testAab(-1, -1, 18, 1, 1, 20));
+    assertTrue(culler.testPoint(0, 0, -5));
+    assertFalse(culler.testPoint(0, 0, 5));
+  }
+
+  @Test
+  public void cullsOutsideSidePlanesAndFarPlane() {
+    // Yaw 0 looks down +x.
+    FrustumCuller culler = cullerFor(new Vector3f(0, 0, 0), 0.0f, 0.0f);
+
+    assertTrue(culler.testAab(10, -1, -1, 12, 1, 1));
+    assertFalse(culler.testAab(10, -1, 200, 12, 1, 202));
+    assertFalse(culler.testAab(10, 200, -1, 12, 202, 1));
+    assertFalse(culler.testAab(1100, -1, -1, 1102, 1, 1));
+    // Straddles the left plane.
+    assertTrue(culler.testAab(10, -1, -30, 12, 1, 0));
+  }
+
+  @Test
+  public void boxContainingCameraIsVisible() {
+    FrustumCuller culler = cullerFor(new Vector3f(8, 70, 8), 45.0f, -60.0f);
+    assertTrue(culler.testAab(0, 0, 0, 16, 128, 16));
+  }
+
+  @Test
+  public void countsTestedAndVisible() {
+    FrustumCuller culler = cullerFor(new Vector3f(0, 0, 0), -90.0f, 0.0f);
+    culler.beginFrame();
+    culler.testAab(-1, -1, -20, 1, 1, -18);
+    culler.testAab(-1, -1, 18, 1, 1, 20);
+    culler.testAab(-1, -1, 30, 1, 1, 32);
+
+    assertEquals(3, culler.tested());
+    assertEquals(1, culler.visible());
+    assertEquals(2, culler.culled());
+
+    culler.beginFrame();
+    assertEquals(0, culler.tested());
+  }
+}
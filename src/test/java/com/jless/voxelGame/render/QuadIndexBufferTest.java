@@ -0,0 +1,42 @@
+package com.jless.voxelGame.render;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_INT;
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_SHORT;
+
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+import org.junit.jupiter.api.Test;
+
+public class QuadIndexBufferTest {
+
+  @Test
+  public void fillsQuadPattern() {
+    IntBuffer ints = IntBuffer.allocate(3 * 6);
+    QuadIndexBuffer.fill(ints, 3);
+    assertArrayEquals(new int[] {
+      0, 1, 2, 2, 3, 0,
+      4, 5, 6, 6, 7, 4,
+      8, 9, 10, 10, 11, 8
+    }, ints.array());
+  }
+
+  @Test
+  public void shortIndicesCoverLastVertex() {
+    int quads = QuadIndexBuffer.MAX_SHORT_VERTICES / 4;
+    ShortBuffer shorts = ShortBuffer.allocate(quads * 6);
+    QuadIndexBuffer.fill(shorts, quads);
+
+    int max = 0;
+    for(short s : shorts.array()) max = Math.max(max, s & 0xFFFF);
+    assertEquals(QuadIndexBuffer.MAX_SHORT_VERTICES - 1, max);
+  }
+
+  @Test
+  public void picksNarrowestElementType() {
+    assertEquals(GL_UNSIGNED_SHORT, QuadIndexBuffer.elementType(4));
+    assertEquals(GL_UNSIGNED_SHORT, QuadIndexBuffer.elementType(QuadIndexBuffer.MAX_SHORT_VERTICES));
+    assertEquals(GL_UNSIGNED_INT, QuadIndexBuffer.elementType(QuadIndexBuffer.MAX_SHORT_VERTICES + 4));
+  }
+}
@@ -0,0 +1,85 @@
+package com.jless.voxelGame.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ChunkCacheTest {
+
+  @Test
+  public void evictsFarthestChunksUntilUnderBudget() {
+    World world = new World(1);
+    for(int cx = -3; cx <= 3; cx++) world.getOrCreateChunk(cx, 0);
+
+    long keep = 0;
+    for(int cx = -1; cx <= 1; cx++) keep += world.getChunk(cx, 0).memoryBytes();
+    ChunkCache cache = new ChunkCache(world, keep);
+    int evicted = cache.update(8.0f, 8.0f);
+
+    assertEquals(4, evicted);
+    assertEquals(3, world.chunkCount());
+    for(int cx = -1; cx <= 1; cx++) assertNotNull(world.getChunk(cx, 0));
+    assertNull(world.getChunk(3, 0));
+    assertNull(world.getChunk(-3, 0));
+    assertEquals(4, cache.evictions());
+    world.shutdown();
+  }
+
+  @Test
+  public void evictionSavesEditedChunksOnly() {
+    World world = new World(1);
+    Chunk edited = world.getOrCreateChunk(5, 5);
+    Chunk clean = world.getOrCreateChunk(-5, -5);
+    Chunk origin = world.getOrCreateChunk(0, 0);
+    world.setBlock(5 * 16, 100, 5 * 16, BlockID.STONE);
+
+    List<Chunk> saved = new ArrayList<>();
+    ChunkCache cache = new ChunkCache(world, 1);
+    cache.setSaveHook(saved::add);
+    cache.update(0.0f, 0.0f);
+
+    assertEquals(List.of(edited), saved);
+    assertEquals(ChunkState.UNLOADED, edited.state());
+    assertEquals(ChunkState.UNLOADED, clean.state());
+    assertEquals(ChunkState.UNLOADED, origin.state());
+    assertEquals(0, world.chunkCount());
+    world.shutdown();
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsedAmongEquallyFarChunks() {
+    World world = new World(1);
+    Chunk west = world.getOrCreateChunk(-1, 0);
+    Chunk east = world.getOrCreateChunk(1, 0);
+    ChunkCache cache = new ChunkCache(world, Long.MAX_VALUE);
+    cache.update(8.0f, 8.0f);
+
+    // Reading a block counts as a use; checking residency does not.
+    world.getBlock(-10, 100, 3);
+    assertTrue(world.isChunkReady(1, 0));
+    cache.setBudget(west.memoryBytes());
+    assertEquals(1, cache.update(8.0f, 8.0f));
+    assertEquals(ChunkState.UNLOADED, east.state());
+    assertNotNull(world.getChunk(-1, 0));
+    world.shutdown();
+  }
+
+  @Test
+  public void countsHitsAndMisses() {
+    World world = new World(1);
+    world.getOrCreateChunk(0, 0);
+    world.getOrCreateChunk(0, 0);
+    world.getOrCreateChunk(1, 0);
+    assertEquals(2, world.misses());
+    assertEquals(1, world.hits());
+
+    world.unloadChunk(0, 0);
+    assertNull(world.getChunk(0, 0));
+    world.getOrCreateChunk(0, 0);
+    assertEquals(3, world.misses());
+    world.shutdown();
+  }
+}
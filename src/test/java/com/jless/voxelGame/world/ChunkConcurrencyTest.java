@@ -0,0 +1,106 @@
+package com.jless.voxelGame.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+
+// Writers only ever replace whole columns with one id and cycle through enough ids to
+// push the palette into raw storage and back (via compact). Readers must never see an
+// id that was not written, and a snapshot must never see a column with two ids.
+public class ChunkConcurrencyTest {
+
+  private static final int READERS = 4;
+  private static final int WRITERS = 2;
+  private static final long RUN_NANOS = 400_000_000L;
+  private static final int IDS = 20;
+
+  private static byte idFor(int n) {
+    // Skips AIR so a torn read of a fresh section would also show up.
+    return (byte)(1 + n % IDS);
+  }
+
+  @Test
+  public void readersNeverSeeTornBlocksOrColumns() throws Exception {
+    World world = new World(1);
+    Chunk chunk = world.getOrCreateChunk(0, 0);
+    chunk.fillBox(0, 0, 0, 16, 128, 16, idFor(0));
+
+    AtomicBoolean stop = new AtomicBoolean();
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    LongAdder reads = new LongAdder();
+    LongAdder writes = new LongAdder();
+    LongAdder snapshots = new LongAdder();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+
+    for(int w = 0; w < WRITERS; w++) {
+      int seed = w;
+      threads.add(new Thread(() -> {
+        Random rng = new Random(seed);
+        await(start);
+        for(int n = 0; !stop.get(); n++) {
+          chunk.fillColumn(rng.nextInt(16), rng.nextInt(16), 0, 128, idFor(rng.nextInt(IDS)));
+          if(n % 64 == 0) chunk.compact();
+          writes.increment();
+        }
+      }));
+    }
+
+    for(int r = 0; r < READERS; r++) {
+      int seed = 100 + r;
+      boolean snapshotReader = r == 0;
+      threads.add(new Thread(() -> {
+        Random rng = new Random(seed);
+        ChunkSnapshot snap = new ChunkSnapshot();
+        await(start);
+        while(!stop.get()) {
+          if(snapshotReader) {
+            snap.capture(world, chunk);
+            for(int x = 0; x < 16; x++) {
+              for(int z = 0; z < 16; z++) {
+                byte bottom = snap.get(x, 0, z);
+                for(int y = 1; y < 128; y++) {
+                  if(snap.get(x, y, z) != bottom) throw new AssertionError("torn column " + x + "," + z + " at y " + y);
+                }
+              }
+            }
+            snapshots.increment();
+          } else {
+            byte id = chunk.getLocal(rng.nextInt(16), rng.nextInt(128), rng.nextInt(16));
+            if(id < 1 || id > IDS) throw new AssertionError("read id " + id);
+            reads.increment();
+          }
+        }
+      }));
+    }
+
+    for(Thread t : threads) {
+      t.setUncaughtExceptionHandler((th, e) -> failure.compareAndSet(null, e));
+      t.start();
+    }
+    start.countDown();
+    Thread.sleep(RUN_NANOS / 1_000_000L);
+    stop.set(true);
+    for(Thread t : threads) t.join();
+
+    if(failure.get() != null) throw new AssertionError(failure.get());
+    assertTrue(reads.sum() > 0 && writes.sum() > 0 && snapshots.sum() > 0);
+    world.shutdown();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
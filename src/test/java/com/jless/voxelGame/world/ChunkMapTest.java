@@ -0,0 +1,95 @@
+package com.jless.voxelGame.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+public class ChunkMapTest {
+
+  @Test
+  public void putGetRemoveAcrossRehash() {
+    ChunkMap map = new ChunkMap(4);
+    for(int x = -20; x < 20; x++) {
+      for(int z = -20; z < 20; z++) {
+        map.put(new Chunk(x, z));
+      }
+    }
+    assertEquals(1600, map.size());
+
+    for(int x = -20; x < 20; x++) {
+      for(int z = -20; z < 20; z++) {
+        Chunk c = map.get(x, z);
+        assertNotNull(c);
+        assertEquals(x, c.cx);
+        assertEquals(z, c.cz);
+      }
+    }
+    assertNull(map.get(20, 0));
+
+    for(int x = -20; x < 20; x += 2) {
+      assertNotNull(map.remove(x, 3));
+    }
+    assertNull(map.get(-20, 3));
+    assertNotNull(map.get(-19, 3));
+    assertEquals(1580, map.size());
+
+    Set<Long> seen = new HashSet<>();
+    for(Chunk c : map) assertTrue(seen.add(c.key));
+    assertEquals(1580, seen.size());
+  }
+
+  @Test
+  public void putReplacesAndRefreshesCache() {
+    ChunkMap map = new ChunkMap();
+    Chunk a = new Chunk(1, 1);
+    Chunk b = new Chunk(1, 1);
+
+    assertNull(map.put(a));
+    assertSame(a, map.get(1, 1));
+    assertSame(a, map.put(b));
+    assertSame(b, map.get(1, 1));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  public void getNeverReturnsAChunkRemovedBeforeItStarted() throws Exception {
+    ChunkMap map = new ChunkMap();
+    map.put(new Chunk(5, 5));
+    AtomicReference<Chunk> removed = new AtomicReference<>();
+    AtomicReference<Chunk> stale = new AtomicReference<>();
+
+    Thread writer = new Thread(() -> {
+      for(int i = 0; i < 200_000 && stale.get() == null; i++) {
+        Chunk c = new Chunk(0, 0);
+        map.put(c);
+        map.remove(0, 0);
+        removed.set(c);
+      }
+      removed.set(null);
+    });
+
+    Runnable reader = () -> {
+      while(writer.isAlive()) {
+        Chunk r = removed.get();
+        // Alternate keys so lookups keep refreshing the one-entry cache.
+        map.get(5, 5);
+        Chunk g = map.get(0, 0);
+        if(r != null && g == r) stale.set(g);
+        g = map.get(0, 0);
+        if(r != null && g == r) stale.set(g);
+      }
+    };
+
+    Thread[] readers = { new Thread(reader), new Thread(reader) };
+    writer.start();
+    for(Thread t : readers) t.start();
+    writer.join();
+    for(Thread t : readers) t.join();
+    assertNull(stale.get());
+    assertNull(map.get(0, 0));
+  }
+}
@@ -0,0 +1,175 @@
+package com.jless.voxelGame.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.IntBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import com.jless.voxelGame.render.ChunkVertex;
+import com.jless.voxelGame.render.MeshBuilder;
+
+public class ChunkMesherTest {
+
+  @Test
+  public void greedyCoversSameFacesWithFewerQuads() {
+    World world = new World();
+    Chunk chunk = world.getOrCreateChunk(0, 0);
+    world.getOrCreateChunk(1, 0);
+    world.getOrCreateChunk(0, 1);
+
+    ChunkMesher naive = new ChunkMesher(ChunkMesher.Mode.NAIVE);
+    ChunkMesher greedy = new ChunkMesher(ChunkMesher.Mode.GREEDY);
+
+    assertTrue(naive.build(world, chunk));
+    assertTrue(greedy.build(world, chunk));
+
+    assertEquals(naive.stats().faces, greedy.stats().faces);
+    assertEquals(naive.stats().faces, naive.stats().quads);
+    assertTrue(greedy.stats().quads < naive.stats().quads);
+    assertEquals(greedy.stats().quads * 4, greedy.stats().vertices);
+    assertEquals(greedy.stats().quads * 6, greedy.stats().indices);
+  }
+
+  @Test
+  public void skipsEmptyAndBuriedSections() {
+    World world = new World();
+    for(int x = -1; x <= 1; x++) {
+      for(int z = -1; z <= 1; z++) {
+        Chunk c = world.getOrCreateChunk(x, z);
+        for(int lx = 0; lx < 16; lx++) {
+          for(int lz = 0; lz < 16; lz++) {
+            for(int y = 0; y < 128; y++) c.setLocal(lx, y, lz, y < 48 ? BlockID.STONE : BlockID.AIR);
+          }
+        }
+      }
+    }
+    Chunk center = world.getChunk(0, 0);
+    assertTrue(center.isSectionFull(1));
+    assertTrue(center.isSectionEmpty(3));
+
+    ChunkMesher greedy = new ChunkMesher(ChunkMesher.Mode.GREEDY);
+    ChunkMesher naive = new ChunkMesher(ChunkMesher.Mode.NAIVE);
+    assertTrue(greedy.build(world, center));
+    assertTrue(naive.build(world, center));
+
+    // Top of the slab plus the bottom of the world; no side faces between full neighbors.
+    assertEquals(256 * 2, naive.stats().faces);
+    assertEquals(256 * 2, greedy.stats().faces);
+    assertEquals(2, greedy.stats().quads);
+  }
+
+  @Test
+  public void flatSlabCollapsesToSixQuads() {
+    World world = new World();
+    Chunk chunk = new Chunk(0, 0);
+    for(int x = 0; x < 4; x++) {
+      for(int z = 0; z < 4; z++) {
+        chunk.setLocal(x, 10, z, BlockID.STONE);
+      }
+    }
+
+    ChunkMesher greedy = new ChunkMesher(ChunkMesher.Mode.GREEDY);
+    assertTrue(greedy.build(world, chunk));
+
+    assertEquals(16 * 2 + 4 * 4, greedy.stats().faces);
+    assertEquals(6, greedy.stats().quads);
+  }
+
+  @Test
+  public void emitsChunkLocalPackedVertices() {
+    World world = new World();
+    Chunk chunk = new Chunk(-3, 7);
+    chunk.setLocal(15, 127, 0, BlockID.STONE);
+
+    ChunkMesher naive = new ChunkMesher(ChunkMesher.Mode.NAIVE);
+    assertTrue(naive.build(world, chunk));
+
+    IntBuffer v = naive.builder().vertices();
+    assertEquals(6 * 4 * ChunkVertex.INTS, v.remaining());
+    boolean[] faces = new boolean[6];
+    while(v.hasRemaining()) {
+      int pos = v.get();
+      v.get();
+      assertTrue(ChunkVertex.x(pos) == 15 || ChunkVertex.x(pos) == 16);
+      assertTrue(ChunkVertex.y(pos) == 127 || ChunkVertex.y(pos) == 128);
+      assertTrue(ChunkVertex.z(pos) == 0 || ChunkVertex.z(pos) == 1);
+      faces[ChunkVertex.face(pos)] = true;
+    }
+    for(boolean f : faces) assertTrue(f);
+  }
+
+  // Loads the centre chunk and the given neighbours ({dx, dz} pairs), all cleared to air.
+  private static World clearedWorld(int[][] neighbours) {
+    World world = new World(1);
+    world.getOrCreateChunk(0, 0).fillBox(0, 0, 0, 16, 128, 16, BlockID.AIR);
+    for(int[] n : neighbours) world.getOrCreateChunk(n[0], n[1]).fillBox(0, 0, 0, 16, 128, 16, BlockID.AIR);
+    return world;
+  }
+
+  private static final int[][] ALL_SIDES = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+
+  @Test
+  public void snapshotCopiesNeighbourBorders() {
+    World world = clearedWorld(ALL_SIDES);
+    world.getChunk(-1, 0).setLocal(15, 40, 3, BlockID.GLASS);
+    world.getChunk(1, 0).setLocal(0, 41, 5, BlockID.STONE);
+    world.getChunk(0, -1).setLocal(7, 42, 15, BlockID.OAK_PLANK);
+    world.getChunk(0, 1).setLocal(9, 43, 0, BlockID.SAND);
+
+    ChunkSnapshot snap = new ChunkSnapshot();
+    snap.capture(world, world.getChunk(0, 0));
+    assertEquals(BlockID.GLASS, snap.get(-1, 40, 3));
+    assertEquals(BlockID.STONE, snap.get(16, 41, 5));
+    assertEquals(BlockID.OAK_PLANK, snap.get(7, 42, -1));
+    assertEquals(BlockID.SAND, snap.get(9, 43, 16));
+    assertEquals(BlockID.AIR, snap.get(-1, 40, 4));
+    assertEquals(BlockID.AIR, snap.get(16, 41, 6));
+    // Corner columns are never copied.
+    assertEquals(BlockID.AIR, snap.get(-1, 40, -1));
+    world.shutdown();
+  }
+
+  @Test
+  public void borderFaceIsCulledOnlyBySolidNeighbour() {
+    World world = clearedWorld(new int[][] { { 1, 0 } });
+    world.getChunk(0, 0).setLocal(15, 60, 8, BlockID.STONE);
+    ChunkSnapshot snap = new ChunkSnapshot();
+    ChunkMesher naive = new ChunkMesher(ChunkMesher.Mode.NAIVE);
+    MeshBuilder out = new MeshBuilder();
+
+    snap.capture(world, world.getChunk(0, 0));
+    assertTrue(naive.build(snap, out));
+    assertEquals(6, naive.stats().faces);
+
+    world.getChunk(1, 0).setLocal(0, 60, 8, BlockID.STONE);
+    snap.capture(world, world.getChunk(0, 0));
+    assertTrue(naive.build(snap, out));
+    assertEquals(5, naive.stats().faces);
+
+    // With the neighbour gone its border reads as air again.
+    world.unloadChunk(1, 0);
+    snap.capture(world, world.getChunk(0, 0));
+    assertTrue(naive.build(snap, out));
+    assertEquals(6, naive.stats().faces);
+    world.shutdown();
+  }
+
+  @Test
+  public void neighbourFullSectionsNeedsEveryNeighbour() {
+    World world = clearedWorld(ALL_SIDES);
+    world.getChunk(0, 0).fillBox(0, 0, 0, 16, 48, 16, BlockID.STONE);
+    for(int[] n : ALL_SIDES) world.getChunk(n[0], n[1]).fillBox(0, 0, 0, 16, 48, 16, BlockID.STONE);
+
+    ChunkSnapshot snap = new ChunkSnapshot();
+    snap.capture(world, world.getChunk(0, 0));
+    assertEquals(0b111, snap.fullSections);
+    assertEquals(0b111, snap.neighbourFullSections);
+
+    world.unloadChunk(0, 1);
+    snap.capture(world, world.getChunk(0, 0));
+    assertEquals(0b111, snap.fullSections);
+    assertEquals(0, snap.neighbourFullSections);
+    world.shutdown();
+  }
+}
@@ -0,0 +1,54 @@
+package com.jless.voxelGame.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class ChunkStreamerTest {
+
+  @Test
+  public void spiralIsNearestFirst() {
+    int[] s = ChunkStreamer.spiral(4);
+    assertEquals(0, s[0]);
+    assertEquals(0, s[1]);
+
+    int prev = 0;
+    for(int i = 0; i < s.length; i += 2) {
+      int d = s[i] * s[i] + s[i + 1] * s[i + 1];
+      assertTrue(d >= prev);
+      assertTrue(d <= 16);
+      prev = d;
+    }
+  }
+
+  @Test
+  public void loadsRenderDistanceAndUnloadsBehind() throws Exception {
+    World world = new World(2);
+    ChunkCache cache = new ChunkCache(world, Long.MAX_VALUE);
+    ChunkStreamer streamer = new ChunkStreamer(world, cache, 2, 1, 4);
+
+    streamUntilIdle(streamer, 8.0f, 8.0f);
+    assertEquals(ChunkStreamer.spiral(2).length / 2, world.chunkCount());
+    assertEquals(world.chunkCount(), streamer.requested());
+    assertNotNull(world.getChunk(2, 0));
+    assertNotNull(world.getChunk(-1, -1));
+    assertNull(world.getChunk(2, 2));
+
+    streamUntilIdle(streamer, 8.0f + 10 * 16, 8.0f);
+    assertNull(world.getChunk(0, 0));
+    assertNotNull(world.getChunk(10, 0));
+    assertNotNull(world.getChunk(8, 0));
+    assertEquals(ChunkStreamer.spiral(2).length / 2, world.chunkCount());
+    assertTrue(streamer.unloaded() > 0);
+    world.shutdown();
+  }
+
+  private static void streamUntilIdle(ChunkStreamer streamer, float x, float z) throws InterruptedException {
+    for(int frame = 0; frame < 1000; frame++) {
+      streamer.update(x, z, 0.0f);
+      if(frame > 0 && streamer.inFlight() == 0) return;
+      Thread.sleep(2);
+    }
+    fail("streaming did not settle");
+  }
+}
@@ -0,0 +1,109 @@
+package com.jless.voxelGame.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.jupiter.api.Test;
+
+public class ChunkTest {
+
+  private static void assertSameBlocks(Chunk expected, Chunk actual) {
+    for(int x = 0; x < 16; x++) {
+      for(int z = 0; z < 16; z++) {
+        for(int y = 0; y < 128; y++) {
+          assertEquals(expected.getLocal(x, y, z), actual.getLocal(x, y, z), x + "," + y + "," + z);
+        }
+      }
+    }
+    for(int sy = 0; sy < 8; sy++) {
+      assertEquals(expected.isSectionEmpty(sy), actual.isSectionEmpty(sy), "section " + sy);
+      if(expected.isSectionEmpty(sy)) continue;
+      assertEquals(expected.section(sy).nonAirCount(), actual.section(sy).nonAirCount());
+      assertEquals(expected.section(sy).solidCount(), actual.section(sy).solidCount());
+    }
+  }
+
+  @Test
+  public void fillBoxMatchesSetLocal() {
+    Chunk filled = new Chunk(0, 0);
+    Chunk ref = new Chunk(0, 0);
+
+    filled.fillBox(0, 0, 0, 16, 40, 16, BlockID.STONE);
+    filled.fillColumn(3, 7, 30, 70, BlockID.DIRT);
+    filled.fillBox(-4, 35, 2, 5, 200, 9, BlockID.GLASS);
+    filled.fillBox(2, 10, 2, 12, 20, 12, BlockID.AIR);
+
+    for(int x = 0; x < 16; x++) {
+      for(int z = 0; z < 16; z++) {
+        for(int y = 0; y < 40; y++) ref.setLocal(x, y, z, BlockID.STONE);
+      }
+    }
+    for(int y = 30; y < 70; y++) ref.setLocal(3, y, 7, BlockID.DIRT);
+    for(int x = 0; x < 5; x++) {
+      for(int z = 2; z < 9; z++) {
+        for(int y = 35; y < 128; y++) ref.setLocal(x, y, z, BlockID.GLASS);
+      }
+    }
+    for(int x = 2; x < 12; x++) {
+      for(int z = 2; z < 12; z++) {
+        for(int y = 10; y < 20; y++) ref.setLocal(x, y, z, BlockID.AIR);
+      }
+    }
+
+    assertSameBlocks(ref, filled);
+  }
+
+  @Test
+  public void fillBoxMakesCoveredSectionsUniformAndMarksThemDirty() {
+    Chunk c = new Chunk(0, 0);
+    c.clearDirty();
+    int before = c.version();
+
+    c.fillBox(0, 0, 0, 16, 40, 16, BlockID.STONE);
+
+    assertTrue(c.section(0).storage().isUniform());
+    assertTrue(c.section(1).storage().isUniform());
+    assertTrue(c.isSectionFull(1));
+    assertFalse(c.isSectionFull(2));
+    assertTrue(c.isDirty());
+    assertTrue(c.version() > before);
+
+    // Refilling with the same id, or air into missing sections, changes nothing.
+    c.clearDirty();
+    before = c.version();
+    assertEquals(0, c.fillBox(0, 0, 0, 16, 40, 16, BlockID.STONE));
+    assertEquals(0, c.fillBox(2, 60, 2, 9, 128, 9, BlockID.AIR));
+    assertFalse(c.isDirty());
+    assertEquals(before, c.version());
+    assertEquals(0b100, c.fillBox(0, 30, 0, 16, 48, 16, BlockID.STONE));
+
+    c.fillBox(0, 0, 0, 16, 128, 16, BlockID.AIR);
+    assertEquals(0, c.nonAirCount());
+    assertTrue(c.isSectionEmpty(0));
+  }
+
+  @Test
+  public void readsSectionsWrittenInTheOldLayout() {
+    Chunk ref = new Chunk(0, 0);
+    for(int x = 0; x < 16; x++) {
+      for(int z = 0; z < 16; z++) {
+        for(int y = 0; y < 16; y++) ref.setLocal(x, y, z, (byte)((x + 2 * z + 3 * y) % 4 + 1));
+      }
+    }
+
+    // Format 1 stored each section x-fastest, then z, then y.
+    PalettedStorage old = new PalettedStorage(ChunkSection.VOLUME, BlockID.AIR);
+    for(int i = 0; i < ChunkSection.VOLUME; i++) old.set(i, ref.getLocal(i % 16, i / 256, (i / 16) % 16));
+    ByteBuffer buf = ByteBuffer.allocate(ChunkCodec.MAX_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    buf.put((byte)1).putInt(1);
+    buf.putShort((short)ref.section(0).nonAirCount()).putShort((short)ref.section(0).solidCount());
+    old.write(buf);
+    buf.flip();
+
+    Chunk read = new Chunk(0, 0);
+    ChunkCodec.read(read, buf);
+    assertSameBlocks(ref, read);
+  }
+}
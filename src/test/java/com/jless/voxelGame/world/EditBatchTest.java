@@ -0,0 +1,91 @@
+package com.jless.voxelGame.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class EditBatchTest {
+
+  // Generates a square of chunks and drains the remesh queue they leave behind.
+  private static World loaded(int radius) {
+    World world = new World(1);
+    for(int cx = -radius; cx <= radius; cx++) {
+      for(int cz = -radius; cz <= radius; cz++) world.getOrCreateChunk(cx, cz);
+    }
+    world.remeshScheduler().drain(c -> c.clearDirty());
+    return world;
+  }
+
+  @Test
+  public void fillAndReplaceMatchPerBlockEdits() {
+    World bulk = loaded(2);
+    World single = loaded(2);
+
+    bulk.fill(-20, 60, -3, 21, 90, 5, BlockID.OAK_PLANK);
+    bulk.replace(-20, 0, -20, 20, 128, 20, BlockID.OAK_PLANK, BlockID.GLASS);
+    for(int x = -20; x < 21; x++) {
+      for(int z = -3; z < 5; z++) {
+        for(int y = 60; y < 90; y++) single.setBlock(x, y, z, BlockID.OAK_PLANK);
+      }
+    }
+    for(int x = -20; x < 20; x++) {
+      for(int z = -20; z < 20; z++) {
+        for(int y = 0; y < 128; y++) {
+          if(single.getBlock(x, y, z) == BlockID.OAK_PLANK) single.setBlock(x, y, z, BlockID.GLASS);
+        }
+      }
+    }
+
+    for(int x = -24; x < 24; x++) {
+      for(int z = -24; z < 24; z++) {
+        for(int y = 0; y < 128; y++) {
+          assertEquals(single.getBlock(x, y, z), bulk.getBlock(x, y, z), x + "," + y + "," + z);
+        }
+      }
+    }
+    bulk.shutdown();
+    single.shutdown();
+  }
+
+  @Test
+  public void batchKeepsTheLastEditToEachBlock() {
+    World world = loaded(1);
+    EditBatch batch = new EditBatch(world);
+    batch.set(3, 70, 3, BlockID.STONE);
+    batch.set(-1, 70, -1, BlockID.GLASS);
+    batch.set(3, 70, 3, BlockID.OAK_PLANK);
+    batch.set(0, 200, 0, BlockID.STONE);
+    assertEquals(3, batch.size());
+
+    assertEquals(2, batch.commit());
+    assertEquals(0, batch.size());
+    assertEquals(BlockID.OAK_PLANK, world.getBlock(3, 70, 3));
+    assertEquals(BlockID.GLASS, world.getBlock(-1, 70, -1));
+    world.shutdown();
+  }
+
+  @Test
+  public void eachChunkIsQueuedOnce() {
+    World world = loaded(1);
+    RemeshScheduler remesh = world.remeshScheduler();
+    long before = remesh.scheduled() + remesh.coalesced();
+
+    // Thousands of edits in the interior of chunk (0, 0) reach only that chunk.
+    EditBatch batch = new EditBatch(world);
+    for(int x = 1; x < 15; x++) {
+      for(int z = 1; z < 15; z++) {
+        for(int y = 40; y < 60; y++) batch.set(x, y, z, BlockID.GLASS);
+      }
+    }
+    assertEquals(1, batch.commit());
+    assertEquals(before + 1, remesh.scheduled() + remesh.coalesced());
+    assertTrue(world.getChunk(0, 0).isDirty());
+
+    // A box across four chunks and ending on the east edge of (0, 0) also queues (1, -1) and (1, 0).
+    world.remeshScheduler().drain(c -> c.clearDirty());
+    before = remesh.scheduled() + remesh.coalesced();
+    world.fill(-4, 64, -4, 16, 65, 4, BlockID.STONE);
+    assertEquals(before + 6, remesh.scheduled() + remesh.coalesced());
+    world.shutdown();
+  }
+}
@@ -0,0 +1,108 @@
+package com.jless.voxelGame.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+public class LightEngineTest {
+
+  private static int[] lightIn(World world, int x0, int z0, int x1, int z1) {
+    int[] out = new int[(x1 - x0) * (z1 - z0) * 128 * 2];
+    int i = 0;
+    for(int x = x0; x < x1; x++) {
+      for(int z = z0; z < z1; z++) {
+        for(int y = 0; y < 128; y++) {
+          out[i++] = world.getSkyLight(x, y, z);
+          out[i++] = world.getBlockLight(x, y, z);
+        }
+      }
+    }
+    return out;
+  }
+
+  @Test
+  public void skyFallsToTheFloorAndStopsAtStone() {
+    World world = TestWorlds.stoneFloor();
+    assertEquals(15, world.getSkyLight(0, 127, 0));
+    assertEquals(15, world.getSkyLight(5, 8, -9));
+    assertEquals(0, world.getSkyLight(5, 7, -9));
+    assertEquals(0, world.getBlockLight(5, 50, -9));
+    world.shutdown();
+  }
+
+  @Test
+  public void roofShadesAndRemovingItRestoresSky() {
+    World world = TestWorlds.stoneFloor();
+    for(int x = 0; x < 8; x++) {
+      for(int z = 0; z < 8; z++) world.setBlock(x, 20, z, BlockID.STONE);
+    }
+    // Four steps in from the open column at x = 8 or z = 8.
+    assertEquals(11, world.getSkyLight(4, 19, 4));
+    assertEquals(11, world.getSkyLight(4, 10, 4));
+    assertEquals(15, world.getSkyLight(4, 21, 4));
+
+    for(int x = 0; x < 8; x++) {
+      for(int z = 0; z < 8; z++) world.setBlock(x, 20, z, BlockID.AIR);
+    }
+    assertEquals(15, world.getSkyLight(4, 10, 4));
+    world.shutdown();
+  }
+
+  @Test
+  public void furnaceLightCrossesChunkBordersAndGoesOutWithIt() {
+    World world = TestWorlds.stoneFloor();
+    world.setBlock(15, 40, 3, BlockID.FURNACE);
+    assertEquals(13, world.getBlockLight(15, 40, 3));
+    assertEquals(12, world.getBlockLight(16, 40, 3));
+    assertEquals(8, world.getBlockLight(20, 40, 3));
+    assertEquals(6, world.getBlockLight(17, 44, 2));
+
+    world.setBlock(15, 40, 3, BlockID.AIR);
+    for(int x = 0; x < 32; x++) {
+      for(int y = 25; y < 56; y++) assertEquals(0, world.getBlockLight(x, y, 3), x + "," + y);
+    }
+    world.shutdown();
+  }
+
+  @Test
+  public void incrementalEditsMatchAFullRelight() {
+    World world = TestWorlds.stoneFloor();
+    byte[] ids = { BlockID.STONE, BlockID.GLASS, BlockID.OAK_LEAVES, BlockID.FURNACE, BlockID.AIR, BlockID.AIR };
+    Random rng = new Random(5);
+    for(int i = 0; i < 600; i++) {
+      world.setBlock(rng.nextInt(24) - 12, 8 + rng.nextInt(16), rng.nextInt(24) - 12, ids[rng.nextInt(ids.length)]);
+    }
+    int[] incremental = lightIn(world, -16, -16, 32, 32);
+
+    List<Chunk> all = new ArrayList<>();
+    for(Chunk c : world.chunks()) all.add(c);
+    world.light().relight(all);
+    assertArrayEquals(lightIn(world, -16, -16, 32, 32), incremental);
+    world.shutdown();
+  }
+
+  @Test
+  public void parallelInitialLightingMatchesSerial() throws Exception {
+    World serial = new World(1);
+    World parallel = new World(4);
+    List<CompletableFuture<Chunk>> futures = new ArrayList<>();
+    for(int cx = 2; cx >= -2; cx--) {
+      for(int cz = 2; cz >= -2; cz--) futures.add(parallel.requestChunk(cx, cz));
+    }
+    for(int cx = -2; cx <= 2; cx++) {
+      for(int cz = -2; cz <= 2; cz++) serial.getOrCreateChunk(cx, cz);
+    }
+    for(CompletableFuture<Chunk> f : futures) f.get();
+
+    assertArrayEquals(lightIn(serial, -32, -32, 48, 48), lightIn(parallel, -32, -32, 48, 48));
+    assertEquals(0, serial.getSkyLight(0, 0, 0));
+    assertEquals(15, serial.getSkyLight(0, 127, 0));
+    serial.shutdown();
+    parallel.shutdown();
+  }
+}
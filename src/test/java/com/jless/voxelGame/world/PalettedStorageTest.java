@@ -0,0 +1,87 @@
+package com.jless.voxelGame.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class PalettedStorageTest {
+
+  @Test
+  public void growsThroughEveryWidthAndMatchesFlatArray() {
+    int size = 4096;
+    PalettedStorage s = new PalettedStorage(size, BlockID.AIR);
+    byte[] ref = new byte[size];
+    Random rng = new Random(7);
+
+    int[] widths = { 0, 1, 2, 2, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 8 };
+    for(int distinct = 1; distinct <= widths.length; distinct++) {
+      for(int i = 0; i < distinct; i++) {
+        s.set(i, (byte)i);
+        ref[i] = (byte)i;
+      }
+      for(int n = 0; n < 500; n++) {
+        int i = distinct + rng.nextInt(size - distinct);
+        byte id = (byte)rng.nextInt(distinct);
+        s.set(i, id);
+        ref[i] = id;
+      }
+      assertEquals(widths[distinct - 1], s.bitsPerEntry());
+    }
+
+    for(int i = 0; i < size; i++) assertEquals(ref[i], s.get(i));
+  }
+
+  @Test
+  public void compactCollapsesUniformContents() {
+    PalettedStorage s = new PalettedStorage(4096, BlockID.AIR);
+    for(int i = 0; i < 4096; i++) s.set(i, (byte)(i % 20));
+    assertEquals(8, s.bitsPerEntry());
+
+    for(int i = 0; i < 4096; i++) s.set(i, BlockID.STONE);
+    s.compact();
+
+    assertTrue(s.isUniform());
+    assertEquals(BlockID.STONE, s.get(1234));
+    assertTrue(s.memoryBytes() < 100);
+  }
+
+  @Test
+  public void compactPicksNarrowestWidth() {
+    PalettedStorage s = new PalettedStorage(4096, BlockID.AIR);
+    for(int i = 0; i < 4096; i++) s.set(i, (byte)(i % 20));
+    for(int i = 0; i < 4096; i++) s.set(i, (byte)(i % 3));
+    s.compact();
+
+    assertEquals(2, s.bitsPerEntry());
+    for(int i = 0; i < 4096; i++) assertEquals((byte)(i % 3), s.get(i));
+  }
+
+  @Test
+  public void fillMatchesPerEntrySetsAtEveryWidth() {
+    Random rng = new Random(11);
+    for(int distinct : new int[] { 1, 2, 3, 5, 17 }) {
+      PalettedStorage s = new PalettedStorage(4096, BlockID.AIR);
+      byte[] ref = new byte[4096];
+      for(int n = 0; n < 200; n++) {
+        int from = rng.nextInt(4096);
+        int to = from + rng.nextInt(4096 - from + 1);
+        byte id = (byte)rng.nextInt(distinct);
+        s.fill(from, to, id);
+        for(int i = from; i < to; i++) ref[i] = id;
+      }
+      for(int i = 0; i < 4096; i++) assertEquals(ref[i], s.get(i), "distinct " + distinct + " @ " + i);
+    }
+  }
+
+  @Test
+  public void fillingEverythingCollapsesToUniform() {
+    PalettedStorage s = new PalettedStorage(4096, BlockID.AIR);
+    for(int i = 0; i < 4096; i++) s.set(i, (byte)(i % 5));
+    s.fill(0, 4096, BlockID.DIRT);
+
+    assertTrue(s.isUniform());
+    assertEquals(BlockID.DIRT, s.get(4095));
+  }
+}
@@ -0,0 +1,52 @@
+package com.jless.voxelGame.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class PerlinTest {
+
+  private static void assertGridMatchesScalar(Perlin p, int x0, int z0, int spacing, int w, int h, float freq, int octaves) {
+    float[] grid = new float[w * h];
+    p.fbmGrid(x0, z0, spacing, w, h, freq, octaves, 0.5f, 2.0f, grid);
+    assertGridEquals(p, x0, z0, spacing, w, h, freq, octaves, grid);
+
+    // With -Psimd, surefire adds the vector module and the opt-in path is checked too.
+    if(Perlin.SIMD != null) {
+      float[] simd = new float[w * h];
+      Perlin.SIMD.fbmGrid(p, x0, z0, spacing, w, h, freq, octaves, 0.5f, 2.0f, simd);
+      assertGridEquals(p, x0, z0, spacing, w, h, freq, octaves, simd);
+    }
+  }
+
+  private static void assertGridEquals(Perlin p, int x0, int z0, int spacing, int w, int h, float freq, int octaves, float[] grid) {
+    for(int j = 0; j < h; j++) {
+      for(int i = 0; i < w; i++) {
+        float expected = p.fbm((x0 + i * spacing) * freq, (z0 + j * spacing) * freq, octaves, 0.5f, 2.0f);
+        // Delta 0 still lets +0 and -0 compare equal.
+        assertEquals(expected, grid[i + j * w], 0.0f, "sample " + i + ", " + j);
+      }
+    }
+  }
+
+  @Test
+  public void chunkGridIsBitIdenticalToScalarFbm() {
+    Perlin p = new Perlin(12345L);
+    assertGridMatchesScalar(p, 0, 0, 1, 16, 16, 0.008f, 5);
+    assertGridMatchesScalar(p, -16 * 37, 16 * 11, 1, 16, 16, 0.008f, 5);
+  }
+
+  @Test
+  public void handlesNegativeIntegerCoordinatesAndOddWidths() {
+    Perlin p = new Perlin(99L);
+    // freq 1 puts samples exactly on lattice points, including negative ones.
+    assertGridMatchesScalar(p, -40, -3, 1, 37, 5, 1.0f, 3);
+    assertGridMatchesScalar(p, 1000, -1000, 4, 5, 5, 0.05f, 4);
+  }
+
+  @Test
+  public void rejectsShortOutput() {
+    Perlin p = new Perlin(1L);
+    assertThrows(IllegalArgumentException.class, () -> p.fbmGrid(0, 0, 1, 16, 16, 0.01f, 1, 0.5f, 2.0f, new float[10]));
+  }
+}
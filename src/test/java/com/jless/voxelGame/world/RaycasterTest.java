@@ -0,0 +1,132 @@
+package com.jless.voxelGame.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class RaycasterTest {
+
+  @Test
+  public void hitsTheFaceTheRayEntersThrough() {
+    World world = TestWorlds.stoneFloor();
+    world.setBlock(20, 20, 3, BlockID.GLASS);
+    world.setBlock(-3, 20, -9, BlockID.FURNACE);
+    Raycaster ray = new Raycaster(world);
+    RayHit hit = new RayHit();
+
+    assertTrue(ray.cast(2.5f, 30.0f, 2.5f, 0, -1, 0, 100, hit));
+    assertEquals(Face.UP, hit.face);
+    assertEquals(BlockID.STONE, hit.id);
+    assertEquals(7, hit.y);
+    assertEquals(22.0f, hit.distance, 1e-4f);
+    assertEquals(8, hit.placeY());
+
+    // Along +x across the chunk border at x = 16.
+    assertTrue(ray.cast(10.5f, 20.5f, 3.5f, 1, 0, 0, 100, hit));
+    assertEquals(20, hit.x);
+    assertEquals(Face.WEST, hit.face);
+    assertEquals(BlockID.GLASS, hit.id);
+    assertEquals(19, hit.placeX());
+
+    // Along -z into negative chunks.
+    assertTrue(ray.cast(-2.5f, 20.5f, 5.5f, 0, 0, -1, 100, hit));
+    assertEquals(-9, hit.z);
+    assertEquals(Face.SOUTH, hit.face);
+    assertEquals(BlockID.FURNACE, hit.id);
+    world.shutdown();
+  }
+
+  @Test
+  public void missesPastMaxDistanceAndOutOfTheWorld() {
+    World world = TestWorlds.stoneFloor();
+    Raycaster ray = new Raycaster(world);
+    RayHit hit = new RayHit();
+
+    assertFalse(ray.cast(2.5f, 30.0f, 2.5f, 0, -1, 0, 21.9f, hit));
+    assertFalse(hit.hit);
+    assertFalse(ray.cast(2.5f, 30.0f, 2.5f, 0.3f, 1, 0.1f, 1000, hit));
+    assertFalse(ray.cast(2.5f, 30.0f, 2.5f, 0, 0, 0, 1000, hit));
+
+    // Starting inside stone hits at once with no face.
+    assertTrue(ray.cast(2.5f, 3.5f, 2.5f, 1, 0, 0, 10, hit));
+    assertNull(hit.face);
+    assertEquals(0.0f, hit.distance);
+    world.shutdown();
+  }
+
+  @Test
+  public void lineOfSightStopsAtWalls() {
+    World world = TestWorlds.stoneFloor();
+    Raycaster ray = new Raycaster(world);
+    RayHit hit = new RayHit();
+    assertTrue(ray.lineOfSight(0.5f, 8.5f, 0.5f, 20.5f, 8.5f, 10.5f, hit));
+    world.fill(10, 8, -16, 11, 30, 32, BlockID.STONE);
+    assertFalse(ray.lineOfSight(0.5f, 8.5f, 0.5f, 20.5f, 8.5f, 10.5f, hit));
+    assertEquals(10, hit.x);
+    // A target inside the wall is still seen.
+    assertTrue(ray.lineOfSight(0.5f, 8.5f, 0.5f, 10.5f, 8.5f, 0.5f, hit));
+    world.shutdown();
+  }
+
+  // Marching in tiny steps must find only air before the DDA hit, on real terrain.
+  @Test
+  public void agreesWithFineMarchingOnTerrain() {
+    World world = new World(1);
+    for(int cx = -1; cx <= 1; cx++) {
+      for(int cz = -1; cz <= 1; cz++) world.getOrCreateChunk(cx, cz);
+    }
+    Raycaster ray = new Raycaster(world);
+    RayHit hit = new RayHit();
+    Random rng = new Random(11);
+    int hits = 0;
+    for(int i = 0; i < 200; i++) {
+      float ox = rng.nextFloat() * 16;
+      float oy = 80 + rng.nextFloat() * 20;
+      float oz = rng.nextFloat() * 16;
+      float dx = rng.nextFloat() * 2 - 1;
+      float dy = -0.2f - rng.nextFloat();
+      float dz = rng.nextFloat() * 2 - 1;
+      if(!ray.cast(ox, oy, oz, dx, dy, dz, 100, hit)) continue;
+      hits++;
+      assertTrue(Blocks.isSolid(world.getBlock(hit.x, hit.y, hit.z)));
+
+      float len = (float)Math.sqrt(dx * dx + dy * dy + dz * dz);
+      for(float t = 0; t < hit.distance - 1e-3f; t += 0.01f) {
+        int x = (int)Math.floor(ox + dx / len * t);
+        int y = (int)Math.floor(oy + dy / len * t);
+        int z = (int)Math.floor(oz + dz / len * t);
+        assertFalse(Blocks.isSolid(world.getBlock(x, y, z)), "ray " + i + " at t=" + t);
+      }
+    }
+    assertTrue(hits > 50);
+    world.shutdown();
+  }
+
+  @Test
+  public void batchMatchesSingleCasts() {
+    World world = TestWorlds.stoneFloor();
+    int n = 1000;
+    float[] rays = new float[n * 6];
+    Random rng = new Random(3);
+    for(int i = 0; i < rays.length; i++) rays[i] = i % 6 < 3 ? rng.nextFloat() * 30 - 8 + (i % 6 == 1 ? 20 : 0) : rng.nextFloat() * 2 - 1;
+    RayHit[] out = new RayHit[n];
+    for(int i = 0; i < n; i++) out[i] = new RayHit();
+
+    int hits = Raycaster.castAll(world, rays, 64, out);
+    Raycaster ray = new Raycaster(world);
+    RayHit single = new RayHit();
+    int expected = 0;
+    for(int i = 0; i < n; i++) {
+      int r = i * 6;
+      boolean h = ray.cast(rays[r], rays[r + 1], rays[r + 2], rays[r + 3], rays[r + 4], rays[r + 5], 64, single);
+      if(h) expected++;
+      assertEquals(h, out[i].hit);
+      if(h) assertEquals(single.y, out[i].y);
+    }
+    assertEquals(expected, hits);
+    assertTrue(hits > 0);
+    world.shutdown();
+  }
+}
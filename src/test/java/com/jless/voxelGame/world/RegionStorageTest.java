@@ -0,0 +1,109 @@
+package com.jless.voxelGame.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RegionStorageTest {
+
+  @TempDir
+  Path dir;
+
+  private static void assertSameBlocks(Chunk expected, Chunk actual) {
+    for(int y = 0; y < 128; y++) {
+      for(int z = 0; z < 16; z++) {
+        for(int x = 0; x < 16; x++) {
+          assertEquals(expected.getLocal(x, y, z), actual.getLocal(x, y, z));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void roundTripsGeneratedAndEditedChunks() {
+    World world = new World(1);
+    Chunk a = world.getOrCreateChunk(0, 0);
+    Chunk b = world.getOrCreateChunk(-33, 70);
+    for(int i = 0; i < 16; i++) b.setLocal(i, 100, i, (byte)(i + 1));
+
+    try(RegionStorage storage = new RegionStorage(dir)) {
+      storage.save(a);
+      storage.save(b);
+      assertFalse(b.needsSave());
+    }
+
+    try(RegionStorage storage = new RegionStorage(dir)) {
+      assertSameBlocks(a, storage.load(0, 0));
+      Chunk loaded = storage.load(-33, 70);
+      assertSameBlocks(b, loaded);
+      assertEquals(b.nonAirCount(), loaded.nonAirCount());
+      assertFalse(loaded.needsSave());
+      assertNull(storage.load(1, 0));
+    }
+    world.shutdown();
+  }
+
+  @Test
+  public void loadingMissingChunksCreatesNoFiles() throws Exception {
+    try(RegionStorage storage = new RegionStorage(dir)) {
+      assertNull(storage.load(0, 0));
+      assertNull(storage.load(-100, 40));
+    }
+    try(Stream<Path> files = Files.list(dir)) {
+      assertEquals(0, files.count());
+    }
+
+    try(RegionStorage storage = new RegionStorage(dir)) {
+      storage.save(new Chunk(0, 0));
+      assertNotNull(storage.load(0, 0));
+      assertNull(storage.load(-100, 40));
+    }
+    try(Stream<Path> files = Files.list(dir)) {
+      assertEquals(1, files.count());
+    }
+  }
+
+  @Test
+  public void rewriteThatGrowsMovesToFreeSectors() {
+    Chunk small = new Chunk(2, 3);
+    small.setLocal(0, 0, 0, BlockID.STONE);
+    Chunk neighbor = new Chunk(3, 3);
+    neighbor.setLocal(1, 1, 1, BlockID.DIRT);
+
+    Chunk big = new Chunk(2, 3);
+    for(int y = 0; y < 128; y++) {
+      for(int i = 0; i < 256; i++) big.setLocal(i & 15, y, i >> 4, (byte)((i * 7 + y) % 22));
+    }
+
+    try(RegionStorage storage = new RegionStorage(dir)) {
+      storage.save(small);
+      storage.save(neighbor);
+      storage.save(big);
+      assertSameBlocks(big, storage.load(2, 3));
+      assertSameBlocks(neighbor, storage.load(3, 3));
+    }
+  }
+
+  @Test
+  public void worldLoadsSavedChunksInsteadOfGenerating() {
+    World first = new World(1);
+    first.setStorage(new RegionStorage(dir));
+    first.setBlock(5, 120, 5, BlockID.FURNACE);
+    assertEquals(1, first.saveAll());
+    first.storage().close();
+    first.shutdown();
+
+    World second = new World(1);
+    second.setStorage(new RegionStorage(dir));
+    second.getOrCreateChunk(0, 0);
+    assertEquals(BlockID.FURNACE, second.getBlock(5, 120, 5));
+    assertEquals(0, second.saveAll());
+    second.storage().close();
+    second.shutdown();
+  }
+}
@@ -0,0 +1,83 @@
+package com.jless.voxelGame.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class RemeshSchedulerTest {
+
+  private static List<Chunk> drain(World world) {
+    List<Chunk> out = new ArrayList<>();
+    world.remeshScheduler().drain(c -> {
+      c.clearDirty();
+      out.add(c);
+    });
+    return out;
+  }
+
+  @Test
+  public void editsInOneFrameCoalesce() {
+    World world = new World(1);
+    Chunk c = world.getOrCreateChunk(0, 0);
+    world.getOrCreateChunk(1, 0);
+    drain(world);
+
+    for(int y = 100; y < 110; y++) world.setBlock(5, y, 5, BlockID.STONE);
+
+    assertEquals(List.of(c), drain(world));
+    assertTrue(drain(world).isEmpty());
+    world.shutdown();
+  }
+
+  @Test
+  public void interiorEditMarksOnlyItsChunk() {
+    World world = new World(1);
+    Chunk c = world.getOrCreateChunk(0, 0);
+    Chunk east = world.getOrCreateChunk(1, 0);
+    drain(world);
+
+    world.setBlock(5, 100, 5, BlockID.STONE);
+    assertTrue(c.isDirty());
+    assertFalse(east.isDirty());
+    assertEquals(List.of(c), drain(world));
+    world.shutdown();
+  }
+
+  @Test
+  public void borderEditSchedulesNeighbor() {
+    World world = new World(1);
+    Chunk c = world.getOrCreateChunk(0, 0);
+    Chunk east = world.getOrCreateChunk(1, 0);
+    Chunk south = world.getOrCreateChunk(0, 1);
+    drain(world);
+
+    world.setBlock(15, 100, 3, BlockID.STONE);
+    List<Chunk> first = drain(world);
+    assertEquals(2, first.size());
+    assertTrue(first.contains(c));
+    assertTrue(first.contains(east));
+
+    world.setBlock(15, 100, 15, BlockID.DIRT);
+    assertEquals(3, drain(world).size());
+    assertFalse(south.isDirty());
+
+    world.setBlock(15, 100, 15, BlockID.DIRT);
+    assertTrue(drain(world).isEmpty());
+    world.shutdown();
+  }
+
+  @Test
+  public void unloadedChunksAreSkipped() {
+    World world = new World(1);
+    world.getOrCreateChunk(0, 0);
+    drain(world);
+
+    world.setBlock(5, 100, 5, BlockID.STONE);
+    world.unloadChunk(0, 0);
+    assertTrue(drain(world).isEmpty());
+    world.shutdown();
+  }
+}
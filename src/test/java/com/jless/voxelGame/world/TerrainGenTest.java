@@ -0,0 +1,150 @@
+package com.jless.voxelGame.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import com.jless.voxelGame.Consts;
+
+public class TerrainGenTest {
+
+  private static final int COLUMNS = Consts.CHUNK_X * Consts.CHUNK_Z;
+
+  private static float[] noise(TerrainGen gen, int cx, int cz) {
+    float[] out = new float[COLUMNS];
+    gen.sampleNoise(cx * Consts.CHUNK_X, cz * Consts.CHUNK_Z, out);
+    return out;
+  }
+
+  @Test
+  public void latticeMatchesExactAtLatticePointsAndCellCentres() {
+    TerrainGen exact = new TerrainGen(42L, TerrainGen.Mode.EXACT);
+    TerrainGen lattice = new TerrainGen(42L, TerrainGen.Mode.LATTICE, 4, 1.0f);
+
+    for(int cx = -2; cx <= 2; cx++) {
+      float[] e = noise(exact, cx, 3);
+      float[] l = noise(lattice, cx, 3);
+      for(int lz = 0; lz < Consts.CHUNK_Z; lz += 4) {
+        for(int lx = 0; lx < Consts.CHUNK_X; lx += 4) {
+          int i = lx + lz * Consts.CHUNK_X;
+          assertEquals(e[i], l[i], 0.0f, "lattice point " + lx + ", " + lz);
+
+          int c = i + 2 + 2 * Consts.CHUNK_X;
+          assertTrue(Math.abs(e[c] - l[c]) * 80.0f <= 1.0f + 1e-3f, "cell centre " + (lx + 2) + ", " + (lz + 2));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void zeroToleranceRefinesEveryCell() {
+    TerrainGen exact = new TerrainGen(7L, TerrainGen.Mode.EXACT);
+    TerrainGen strict = new TerrainGen(7L, TerrainGen.Mode.LATTICE, 4, 0.0f);
+
+    assertArrayEquals(noise(exact, 1, -1), noise(strict, 1, -1));
+    assertEquals(16, strict.cells());
+    assertEquals(16, strict.refinedCells());
+  }
+
+  @Test
+  public void neighbouringChunksShareBorderSamples() {
+    TerrainGen gen = new TerrainGen(3L, TerrainGen.Mode.LATTICE);
+    noise(gen, 0, 0);
+    assertEquals(0, gen.latticeCache().hits());
+
+    // The east chunk's west column of five lattice points was filled by chunk (0, 0).
+    noise(gen, 1, 0);
+    assertEquals(5, gen.latticeCache().hits());
+  }
+
+  @Test
+  public void rejectsStepThatDoesNotDivideTheChunk() {
+    assertThrows(IllegalArgumentException.class, () -> new TerrainGen(1L, TerrainGen.Mode.LATTICE, 3, 1.0f));
+  }
+
+  // counts[id] over every generated block; counts[256] is the air below each
+  // column's stone top, which only the cave stage leaves behind.
+  private static int[] countBlocks(TerrainGen gen, int radius) {
+    int[] counts = new int[257];
+    for(int cx = -radius; cx <= radius; cx++) {
+      for(int cz = -radius; cz <= radius; cz++) {
+        Chunk c = new Chunk(cx, cz);
+        gen.generateChunks(c);
+        float[] n = noise(gen, cx, cz);
+        for(int x = 0; x < 16; x++) {
+          for(int z = 0; z < 16; z++) {
+            int height = Math.min(TerrainGen.height(n[x + z * Consts.CHUNK_X]), 127);
+            int stoneTop = height - TerrainGen.DIRT_DEPTH;
+            for(int y = 0; y < 128; y++) {
+              byte id = c.getLocal(x, y, z);
+              counts[id & 0xFF]++;
+              if(id != BlockID.AIR) continue;
+              if(y < stoneTop) counts[256]++;
+              assertFalse(y >= stoneTop && y <= height, "carved above stone top at " + x + "," + y + "," + z);
+            }
+          }
+        }
+      }
+    }
+    return counts;
+  }
+
+  @Test
+  public void stagesCarveCavesAndPlaceEveryOre() {
+    TerrainGen gen = new TerrainGen(12345L, TerrainGen.Mode.LATTICE);
+    int[] counts = countBlocks(gen, 2);
+
+    assertTrue(counts[256] > 0, "no caves carved");
+    assertTrue(counts[BlockID.COAL_ORE] > 0);
+    assertTrue(counts[BlockID.IRON_ORE] > 0);
+    assertTrue(counts[BlockID.COPPER_ORE] > 0);
+    assertTrue(counts[BlockID.DIAMOND_ORE] > 0);
+    assertTrue(counts[BlockID.SAND] > 0);
+
+    assertEquals(25, gen.chunksGenerated());
+    for(TerrainGen.Stage s : TerrainGen.Stage.values()) assertTrue(gen.stageNanos(s) > 0, s.name());
+  }
+
+  @Test
+  public void outputIsIndependentOfThreadsAndOrder() throws Exception {
+    TerrainGen serial = new TerrainGen(99L, TerrainGen.Mode.LATTICE);
+    List<Chunk> expected = new ArrayList<>();
+    for(int i = 0; i < 12; i++) {
+      Chunk c = new Chunk(i % 4, i / 4);
+      serial.generateChunks(c);
+      expected.add(c);
+    }
+
+    TerrainGen shared = new TerrainGen(99L, TerrainGen.Mode.LATTICE);
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    List<Future<Chunk>> futures = new ArrayList<>();
+    for(int i = 11; i >= 0; i--) {
+      int cx = i % 4;
+      int cz = i / 4;
+      futures.add(pool.submit(() -> {
+        Chunk c = new Chunk(cx, cz);
+        shared.generateChunks(c);
+        return c;
+      }));
+    }
+    pool.shutdown();
+
+    for(Future<Chunk> f : futures) {
+      Chunk actual = f.get();
+      Chunk want = expected.get(actual.cx + actual.cz * 4);
+      for(int x = 0; x < 16; x++) {
+        for(int z = 0; z < 16; z++) {
+          for(int y = 0; y < 128; y++) {
+            assertEquals(want.getLocal(x, y, z), actual.getLocal(x, y, z), actual.cx + "," + actual.cz + " @ " + x + "," + y + "," + z);
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.jless.voxelGame.world;
+
+// World fixtures shared by the world tests.
+final class TestWorlds {
+
+  // 3x3 chunks around the origin, cleared to air above a stone floor at y < 8.
+  static World stoneFloor() {
+    World world = new World(1);
+    for(int cx = -1; cx <= 1; cx++) {
+      for(int cz = -1; cz <= 1; cz++) world.getOrCreateChunk(cx, cz);
+    }
+    world.fill(-16, 0, -16, 32, 128, 32, BlockID.AIR);
+    world.fill(-16, 0, -16, 32, 8, 32, BlockID.STONE);
+    return world;
+  }
+
+  private TestWorlds() {}
+}
@@ -0,0 +1,46 @@
+package com.jless.voxelGame.world;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class WorldTest {
+
+  @Test
+  public void requestChunkGeneratesInBackground() throws Exception {
+    World world = new World(2);
+    assertNull(world.chunkState(3, -2));
+
+    CompletableFuture<Chunk> f = world.requestChunk(3, -2);
+    assertSame(f, world.requestChunk(3, -2));
+
+    Chunk c = f.get(10, TimeUnit.SECONDS);
+    assertEquals(ChunkState.GENERATED, c.state());
+    assertTrue(world.isChunkReady(3, -2));
+    assertSame(c, world.getOrCreateChunk(3, -2));
+    assertEquals(BlockID.STONE, world.getBlock(3 * 16, 0, -2 * 16));
+    world.shutdown();
+  }
+
+  @Test
+  public void syncAccessorMatchesAsyncResult() throws Exception {
+    World a = new World(1);
+    World b = new World(1);
+
+    Chunk sync = a.getOrCreateChunk(-1, 4);
+    Chunk async = b.requestChunk(-1, 4).get(10, TimeUnit.SECONDS);
+
+    for(int x = 0; x < 16; x++) {
+      for(int z = 0; z < 16; z++) {
+        for(int y = 0; y < 128; y++) {
+          assertEquals(sync.getLocal(x, y, z), async.getLocal(x, y, z));
+        }
+      }
+    }
+    a.shutdown();
+    b.shutdown();
+  }
+}